@@ -0,0 +1,71 @@
+package me.josvth.trade.benchmark;
+
+import me.josvth.trade.util.ExperienceManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the closed forms of {@link ExperienceManager} with the {@link LegacyExperienceTable} lookups for XP amounts
+ * of players up to the given level.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExperienceBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"30", "100", "1000"})
+    public int maxLevel;
+
+    private LegacyExperienceTable table;
+
+    private final int[] levels = new int[SAMPLES];
+    private final int[] amounts = new int[SAMPLES];
+
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        table = new LegacyExperienceTable(maxLevel + 2);
+
+        final Random random = new Random(0);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            levels[i] = random.nextInt(maxLevel + 1);
+            amounts[i] = random.nextInt(table.getXpForLevel(maxLevel) + 1);
+        }
+
+    }
+
+    private int next() {
+        return index = (index + 1) & (SAMPLES - 1);
+    }
+
+    @Benchmark
+    public int levelForExp() {
+        return ExperienceManager.getLevelForExp(amounts[next()]);
+    }
+
+    @Benchmark
+    public int levelForExpTable() {
+        return table.getLevelForExp(amounts[next()]);
+    }
+
+    @Benchmark
+    public int xpForLevel() {
+        return ExperienceManager.getXpForLevel(levels[next()]);
+    }
+
+    @Benchmark
+    public int xpForLevelTable() {
+        return table.getXpForLevel(levels[next()]);
+    }
+
+}
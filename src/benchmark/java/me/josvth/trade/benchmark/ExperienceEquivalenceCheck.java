@@ -0,0 +1,53 @@
+package me.josvth.trade.benchmark;
+
+import me.josvth.trade.util.ExperienceManager;
+
+/**
+ * Exhaustively compares the closed forms of {@link ExperienceManager} with the {@link LegacyExperienceTable} for every
+ * level up to the given maximum and every XP amount up to the XP of that level. The default maximum of 20000 levels is
+ * about as far as the int tables go before they overflow.
+ *
+ * Usage: ExperienceEquivalenceCheck [max-level]
+ */
+public class ExperienceEquivalenceCheck {
+
+    public static void main(String[] args) {
+
+        final int maxLevel = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+
+        final LegacyExperienceTable table = new LegacyExperienceTable(maxLevel + 2);
+
+        long failures = 0;
+
+        for (int level = 0; level <= maxLevel; level++) {
+            if (ExperienceManager.getXpForLevel(level) != table.getXpForLevel(level)) {
+                failures += fail("getXpForLevel(" + level + ")", ExperienceManager.getXpForLevel(level), table.getXpForLevel(level));
+            }
+            if (ExperienceManager.getXpNeededToLevelUp(level) != table.getXpNeededToLevelUp(level)) {
+                failures += fail("getXpNeededToLevelUp(" + level + ")", ExperienceManager.getXpNeededToLevelUp(level), table.getXpNeededToLevelUp(level));
+            }
+        }
+
+        final int maxExp = table.getXpForLevel(maxLevel);
+
+        for (int exp = -1; exp <= maxExp; exp++) {
+            final int level = ExperienceManager.getLevelForExp(exp);
+            if (level != table.getLevelForExp(exp)) {
+                failures += fail("getLevelForExp(" + exp + ")", level, table.getLevelForExp(exp));
+            }
+        }
+
+        System.out.println("Checked " + (maxLevel + 1) + " levels and " + (maxExp + 2L) + " XP amounts, " + failures + " failures.");
+
+        if (failures > 0) {
+            System.exit(1);
+        }
+
+    }
+
+    private static int fail(String call, int actual, int expected) {
+        System.out.println(call + " returned " + actual + ", expected " + expected);
+        return 1;
+    }
+
+}
@@ -0,0 +1,54 @@
+package me.josvth.trade.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * The lookup table implementation the {@link me.josvth.trade.util.ExperienceManager} used before it switched to the
+ * closed forms of the XP curve. The tables are built once for a fixed amount of levels instead of growing on demand,
+ * the values in range are the same.
+ */
+public class LegacyExperienceTable {
+
+    private final int[] xpRequiredForNextLevel;
+    private final int[] xpTotalToReachLevel;
+
+    public LegacyExperienceTable(int maxLevel) {
+        xpRequiredForNextLevel = new int[maxLevel];
+        xpTotalToReachLevel = new int[maxLevel];
+
+        xpTotalToReachLevel[0] = 0;
+
+        int incr = 17;
+        for (int i = 1; i < xpTotalToReachLevel.length; i++) {
+            xpRequiredForNextLevel[i - 1] = incr;
+            xpTotalToReachLevel[i] = xpTotalToReachLevel[i - 1] + incr;
+            if (i >= 30) {
+                incr += 7;
+            } else if (i >= 16) {
+                incr += 3;
+            }
+        }
+        xpRequiredForNextLevel[xpRequiredForNextLevel.length - 1] = incr;
+    }
+
+    public int getMaxLevel() {
+        return xpTotalToReachLevel.length - 1;
+    }
+
+    public int getLevelForExp(int exp) {
+        if (exp <= 0) {
+            return 0;
+        }
+        final int pos = Arrays.binarySearch(xpTotalToReachLevel, exp);
+        return pos < 0 ? -pos - 2 : pos;
+    }
+
+    public int getXpNeededToLevelUp(int level) {
+        return xpRequiredForNextLevel[level];
+    }
+
+    public int getXpForLevel(int level) {
+        return xpTotalToReachLevel[level];
+    }
+
+}
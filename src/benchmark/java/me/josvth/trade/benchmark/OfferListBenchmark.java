@@ -0,0 +1,162 @@
+package me.josvth.trade.benchmark;
+
+import me.josvth.trade.transaction.inventory.offer.*;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the mutation engine of {@link OfferList} over offer sizes ranging from the default layout (4) up to a full
+ * 6 row layout (54) with either only items or a mix of item, experience and money offers.
+ *
+ * The mutating benchmarks restore the list to the same half filled state at the start of every invocation so add and
+ * remove always work against identical contents. {@link #restoreBaseline()} measures the restore alone and should be
+ * subtracted from their scores. A {@link Level#Invocation} setup would cost more than the work measured here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OfferListBenchmark {
+
+    private static final Material[] MATERIALS = {Material.STONE, Material.DIRT, Material.COBBLESTONE, Material.LOG, Material.DIAMOND, Material.IRON_INGOT};
+
+    @Param({"4", "9", "18", "27", "36", "54"})
+    public int size;
+
+    @Param({"ITEMS", "MIXED"})
+    public Contents contents;
+
+    private OfferList list;
+    private Offer[] template;
+
+    private ItemOffer singleItem;
+    private ItemOffer stackBurst;
+    private ExperienceOffer experience;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+
+        StubServer.install();
+
+        list = new OfferList(null, size, OfferList.Type.TRADE);
+        template = contents.create(size);
+        restore();
+
+        singleItem = new ItemOffer(Material.STONE, 1, (short) 0, null, null);
+        stackBurst = new ItemOffer(Material.STONE, 3 * Material.STONE.getMaxStackSize(), (short) 0, null, null);
+        experience = new ExperienceOffer(5);
+
+    }
+
+    private void restore() {
+        for (int i = 0; i < template.length; i++) {
+            list.set(i, (template[i] == null) ? null : template[i].clone());
+        }
+    }
+
+    @Benchmark
+    public OfferList restoreBaseline() {
+        restore();
+        return list;
+    }
+
+    @Benchmark
+    public OfferMutationResult addSingleItem() {
+        restore();
+        return list.add(singleItem);
+    }
+
+    @Benchmark
+    public OfferMutationResult addShiftClickBurst() {
+        restore();
+        return list.add(stackBurst);
+    }
+
+    @Benchmark
+    public OfferMutationResult addExperience() {
+        restore();
+        return list.add(experience);
+    }
+
+    @Benchmark
+    public OfferMutationResult removeSingleItem() {
+        restore();
+        return list.remove(singleItem);
+    }
+
+    @Benchmark
+    public OfferMutationResult removeShiftClickBurst() {
+        restore();
+        return list.remove(stackBurst);
+    }
+
+    @Benchmark
+    public Map<Integer, Offer> getOfType() {
+        return list.getOfType(ItemOffer.TYPE_NAME);
+    }
+
+    @Benchmark
+    public Map<Integer, ExperienceOffer> getOfClass() {
+        return list.getOfClass(ExperienceOffer.class);
+    }
+
+    @Benchmark
+    public int getFirstEmpty() {
+        return list.getFirstEmpty();
+    }
+
+    public enum Contents {
+
+        /**
+         * Every other slot holds a partial item stack, the rest is empty.
+         */
+        ITEMS {
+            @Override
+            Offer create(int index) {
+                return (index % 2 == 0) ? item(index) : null;
+            }
+        },
+
+        /**
+         * Every other slot holds an item, experience or money offer, the rest is empty.
+         */
+        MIXED {
+            @Override
+            Offer create(int index) {
+                if (index % 2 != 0) {
+                    return null;
+                }
+                switch ((index / 2) % 3) {
+                    case 0:
+                        return item(index);
+                    case 1:
+                        return new ExperienceOffer(10);
+                    default:
+                        return new MoneyOffer(10);
+                }
+            }
+        };
+
+        abstract Offer create(int index);
+
+        Offer[] create(int size) {
+            final Offer[] offers = new Offer[size];
+            for (int i = 0; i < size; i++) {
+                offers[i] = create(i);
+            }
+            return offers;
+        }
+
+        private static ItemOffer item(int index) {
+            final Material material = MATERIALS[(index / 2) % MATERIALS.length];
+            return new ItemOffer(material, material.getMaxStackSize() / 2, (short) 0, null, null);
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package me.josvth.trade.benchmark;
+
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Value based {@link ItemMeta} stand-in that only keeps track of the display name and lore.
+ */
+public class StubItemMeta implements InvocationHandler {
+
+    private String displayName;
+    private List<String> lore;
+
+    public static ItemMeta create() {
+        return StubServer.stub(ItemMeta.class, new StubItemMeta());
+    }
+
+    private ItemMeta copy() {
+        final StubItemMeta copy = new StubItemMeta();
+        copy.displayName = displayName;
+        copy.lore = (lore == null) ? null : new ArrayList<String>(lore);
+        return StubServer.stub(ItemMeta.class, copy);
+    }
+
+    private boolean isSimilar(Object other) {
+        if (!(other instanceof ItemMeta) || !Proxy.isProxyClass(other.getClass())) {
+            return false;
+        }
+        final InvocationHandler handler = Proxy.getInvocationHandler(other);
+        if (!(handler instanceof StubItemMeta)) {
+            return false;
+        }
+        final StubItemMeta meta = (StubItemMeta) handler;
+        return equal(displayName, meta.displayName) && equal(lore, meta.lore);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return (a == null) ? b == null : a.equals(b);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        final String name = method.getName();
+
+        if ("hasDisplayName".equals(name)) {
+            return displayName != null;
+        }
+
+        if ("getDisplayName".equals(name)) {
+            return displayName;
+        }
+
+        if ("setDisplayName".equals(name)) {
+            displayName = (String) args[0];
+            return null;
+        }
+
+        if ("hasLore".equals(name)) {
+            return lore != null && !lore.isEmpty();
+        }
+
+        if ("getLore".equals(name)) {
+            return (lore == null) ? null : new ArrayList<String>(lore);
+        }
+
+        if ("setLore".equals(name)) {
+            lore = (args[0] == null) ? null : new ArrayList<String>((List<String>) args[0]);
+            return null;
+        }
+
+        if ("clone".equals(name)) {
+            return copy();
+        }
+
+        if ("equals".equals(name) && args != null && args.length == 1) {
+            return isSimilar(args[0]);
+        }
+
+        if ("hashCode".equals(name) && (args == null || args.length == 0)) {
+            return 31 * ((displayName == null) ? 0 : displayName.hashCode()) + ((lore == null) ? 0 : lore.hashCode());
+        }
+
+        if ("getEnchants".equals(name)) {
+            return Collections.emptyMap();
+        }
+
+        if ("serialize".equals(name)) {
+            final Map<String, Object> map = new LinkedHashMap<String, Object>();
+            map.put("display-name", displayName);
+            map.put("lore", lore);
+            return map;
+        }
+
+        return StubServer.handleObjectMethod(proxy, method, args);
+
+    }
+
+}
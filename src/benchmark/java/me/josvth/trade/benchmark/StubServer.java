@@ -0,0 +1,127 @@
+package me.josvth.trade.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * In-memory stand-in for the Bukkit {@link Server} so that offer and item code can run outside of a live server.
+ * Every method that is not handled explicitly returns the default value of its return type.
+ */
+public class StubServer implements InvocationHandler {
+
+    private final Logger logger = Logger.getLogger("StubServer");
+
+    private final ItemFactory itemFactory = stub(ItemFactory.class, new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && args.length == 2) {
+                final ItemMeta a = (ItemMeta) args[0];
+                final ItemMeta b = (ItemMeta) args[1];
+                return (a == null) ? b == null : a.equals(b);
+            }
+            if ("isApplicable".equals(method.getName())) {
+                return true;
+            }
+            if ("asMetaFor".equals(method.getName())) {
+                return args[0];
+            }
+            if ("getItemMeta".equals(method.getName())) {
+                return StubItemMeta.create();
+            }
+            return handleObjectMethod(proxy, method, args);
+        }
+    });
+
+    public static Server install() {
+        return install(new StubServer());
+    }
+
+    /**
+     * Installs the given handler as the Bukkit server. Bukkit only accepts one server per JVM so if a server was
+     * installed before that server is returned instead.
+     */
+    public static synchronized Server install(StubServer handler) {
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(stub(Server.class, handler));
+        }
+        return Bukkit.getServer();
+    }
+
+    public static <T> T stub(Class<T> clazz, InvocationHandler handler) {
+        return clazz.cast(Proxy.newProxyInstance(StubServer.class.getClassLoader(), new Class<?>[]{clazz}, handler));
+    }
+
+    public static Object handleObjectMethod(Object proxy, Method method, Object[] args) {
+        if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName()) && (args == null || args.length == 0)) {
+            return System.identityHashCode(proxy);
+        }
+        if ("toString".equals(method.getName()) && (args == null || args.length == 0)) {
+            return proxy.getClass().getInterfaces()[0].getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+        return defaultValue(method.getReturnType());
+    }
+
+    public static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        return 0D;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        final String name = method.getName();
+
+        if ("getLogger".equals(name)) {
+            return logger;
+        }
+
+        if ("getName".equals(name)) {
+            return "StubServer";
+        }
+
+        if ("getVersion".equals(name) || "getBukkitVersion".equals(name)) {
+            return "benchmark";
+        }
+
+        if ("getItemFactory".equals(name)) {
+            return itemFactory;
+        }
+
+        return handleObjectMethod(proxy, method, args);
+
+    }
+
+}
@@ -0,0 +1,180 @@
+package me.josvth.trade.benchmark.sim;
+
+import me.josvth.trade.benchmark.StubServer;
+import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Array backed {@link Inventory} and {@link PlayerInventory}.
+ */
+public class SimInventory implements InvocationHandler {
+
+    private final InventoryType type;
+    private final String title;
+    private final ItemStack[] contents;
+    private final ItemStack[] armor = new ItemStack[4];
+    private final List<HumanEntity> viewers = new ArrayList<HumanEntity>();
+
+    private final InventoryHolder holder;
+
+    private SimInventory(InventoryType type, InventoryHolder holder, int size, String title) {
+        this.type = type;
+        this.holder = holder;
+        this.title = title;
+        this.contents = new ItemStack[size];
+    }
+
+    public static Inventory create(InventoryHolder holder, int size, String title) {
+        return StubServer.stub(Inventory.class, new SimInventory(InventoryType.CHEST, holder, size, title));
+    }
+
+    public static PlayerInventory createPlayerInventory(InventoryHolder holder) {
+        return StubServer.stub(PlayerInventory.class, new SimInventory(InventoryType.PLAYER, holder, InventoryType.PLAYER.getDefaultSize(), "Player"));
+    }
+
+    private static boolean isEmpty(ItemStack item) {
+        return item == null || item.getType() == Material.AIR || item.getAmount() <= 0;
+    }
+
+    private HashMap<Integer, ItemStack> addItem(ItemStack... items) {
+
+        final HashMap<Integer, ItemStack> leftover = new HashMap<Integer, ItemStack>();
+
+        for (int i = 0; i < items.length; i++) {
+
+            if (isEmpty(items[i])) {
+                continue;
+            }
+
+            final ItemStack item = items[i].clone();
+            final int maxStackSize = Math.min(64, item.getMaxStackSize());
+
+            // Fill up similar stacks first
+            for (int slot = 0; slot < contents.length && item.getAmount() > 0; slot++) {
+                if (contents[slot] != null && contents[slot].isSimilar(item) && contents[slot].getAmount() < maxStackSize) {
+                    final int added = Math.min(maxStackSize - contents[slot].getAmount(), item.getAmount());
+                    contents[slot].setAmount(contents[slot].getAmount() + added);
+                    item.setAmount(item.getAmount() - added);
+                }
+            }
+
+            // Then use empty slots
+            for (int slot = 0; slot < contents.length && item.getAmount() > 0; slot++) {
+                if (isEmpty(contents[slot])) {
+                    final ItemStack stack = item.clone();
+                    stack.setAmount(Math.min(maxStackSize, item.getAmount()));
+                    contents[slot] = stack;
+                    item.setAmount(item.getAmount() - stack.getAmount());
+                }
+            }
+
+            if (item.getAmount() > 0) {
+                leftover.put(i, item);
+            }
+
+        }
+
+        return leftover;
+
+    }
+
+    private int firstEmpty() {
+        for (int i = 0; i < contents.length; i++) {
+            if (isEmpty(contents[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        final String name = method.getName();
+
+        if ("getSize".equals(name)) {
+            return contents.length;
+        }
+
+        if ("getMaxStackSize".equals(name)) {
+            return 64;
+        }
+
+        if ("getName".equals(name) || "getTitle".equals(name)) {
+            return title;
+        }
+
+        if ("getType".equals(name)) {
+            return type;
+        }
+
+        if ("getHolder".equals(name)) {
+            return holder;
+        }
+
+        if ("getViewers".equals(name)) {
+            return viewers;
+        }
+
+        if ("getItem".equals(name)) {
+            return contents[(Integer) args[0]];
+        }
+
+        if ("setItem".equals(name)) {
+            contents[(Integer) args[0]] = isEmpty((ItemStack) args[1]) ? null : (ItemStack) args[1];
+            return null;
+        }
+
+        if ("getContents".equals(name)) {
+            return contents.clone();
+        }
+
+        if ("setContents".equals(name)) {
+            Arrays.fill(contents, null);
+            final ItemStack[] items = (ItemStack[]) args[0];
+            System.arraycopy(items, 0, contents, 0, Math.min(items.length, contents.length));
+            return null;
+        }
+
+        if ("getArmorContents".equals(name)) {
+            return armor.clone();
+        }
+
+        if ("addItem".equals(name)) {
+            return addItem((ItemStack[]) args[0]);
+        }
+
+        if ("firstEmpty".equals(name)) {
+            return firstEmpty();
+        }
+
+        if ("clear".equals(name)) {
+            if (args == null || args.length == 0) {
+                Arrays.fill(contents, null);
+            } else {
+                contents[(Integer) args[0]] = null;
+            }
+            return null;
+        }
+
+        if ("iterator".equals(name)) {
+            return Arrays.asList(contents).listIterator();
+        }
+
+        return StubServer.handleObjectMethod(proxy, method, args);
+
+    }
+
+}
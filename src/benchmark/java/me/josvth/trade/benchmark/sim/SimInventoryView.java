@@ -0,0 +1,39 @@
+package me.josvth.trade.benchmark.sim;
+
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+
+public class SimInventoryView extends InventoryView {
+
+    private final Player player;
+    private final Inventory top;
+
+    public SimInventoryView(Player player, Inventory top) {
+        this.player = player;
+        this.top = top;
+    }
+
+    @Override
+    public Inventory getTopInventory() {
+        return top;
+    }
+
+    @Override
+    public Inventory getBottomInventory() {
+        return player.getInventory();
+    }
+
+    @Override
+    public HumanEntity getPlayer() {
+        return player;
+    }
+
+    @Override
+    public InventoryType getType() {
+        return top.getType();
+    }
+
+}
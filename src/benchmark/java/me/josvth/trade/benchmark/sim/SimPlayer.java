@@ -0,0 +1,183 @@
+package me.josvth.trade.benchmark.sim;
+
+import me.josvth.trade.benchmark.StubServer;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Online {@link Player} that has every permission, stands at the spawn of the simulated world and counts the messages
+ * it receives.
+ */
+public class SimPlayer implements InvocationHandler {
+
+    private final SimServer server;
+    private final UUID id;
+    private final String name;
+
+    private final Player proxy;
+    private final PlayerInventory inventory;
+
+    private InventoryView openView;
+    private ItemStack cursor;
+
+    private int level = 30;
+    private float exp = 0;
+    private int totalExperience = 1395;
+
+    private long messages = 0;
+
+    public SimPlayer(SimServer server, UUID id, String name) {
+        this.server = server;
+        this.id = id;
+        this.name = name;
+        this.proxy = StubServer.stub(Player.class, this);
+        this.inventory = SimInventory.createPlayerInventory(proxy);
+    }
+
+    public Player getProxy() {
+        return proxy;
+    }
+
+    public long getMessages() {
+        return messages;
+    }
+
+    private InventoryView openInventory(Inventory inventory) {
+        closeInventory();
+        openView = new SimInventoryView(proxy, inventory);
+        inventory.getViewers().add(proxy);
+        return openView;
+    }
+
+    private void closeInventory() {
+        if (openView != null) {
+            final InventoryView view = openView;
+            openView = null;
+            view.getTopInventory().getViewers().remove(proxy);
+            server.callEvent(new InventoryCloseEvent(view));
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        final String name = method.getName();
+
+        if ("getUniqueId".equals(name)) {
+            return id;
+        }
+
+        if ("getName".equals(name) || "getDisplayName".equals(name) || "getPlayerListName".equals(name)) {
+            return this.name;
+        }
+
+        if ("getPlayer".equals(name)) {
+            return proxy;
+        }
+
+        if ("getServer".equals(name)) {
+            return server.getProxy();
+        }
+
+        if ("isOnline".equals(name) || "hasPermission".equals(name) || "isPermissionSet".equals(name) || "canSee".equals(name) || "isValid".equals(name)) {
+            return true;
+        }
+
+        if ("getGameMode".equals(name)) {
+            return GameMode.SURVIVAL;
+        }
+
+        if ("getWorld".equals(name)) {
+            return server.getWorld();
+        }
+
+        if ("getLocation".equals(name)) {
+            return new Location(server.getWorld(), 0, 64, 0);
+        }
+
+        if ("getMetadata".equals(name)) {
+            return Collections.emptyList();
+        }
+
+        if ("getInventory".equals(name)) {
+            return inventory;
+        }
+
+        if ("getOpenInventory".equals(name)) {
+            return openView;
+        }
+
+        if ("openInventory".equals(name) && args[0] instanceof Inventory) {
+            return openInventory((Inventory) args[0]);
+        }
+
+        if ("closeInventory".equals(name)) {
+            closeInventory();
+            return null;
+        }
+
+        if ("getItemOnCursor".equals(name)) {
+            return cursor;
+        }
+
+        if ("setItemOnCursor".equals(name)) {
+            cursor = (ItemStack) args[0];
+            return null;
+        }
+
+        if ("sendMessage".equals(name)) {
+            messages += (args[0] instanceof String[]) ? ((String[]) args[0]).length : 1;
+            return null;
+        }
+
+        if ("getLevel".equals(name)) {
+            return level;
+        }
+
+        if ("setLevel".equals(name)) {
+            level = (Integer) args[0];
+            return null;
+        }
+
+        if ("getExp".equals(name)) {
+            return exp;
+        }
+
+        if ("setExp".equals(name)) {
+            exp = (Float) args[0];
+            return null;
+        }
+
+        if ("getTotalExperience".equals(name)) {
+            return totalExperience;
+        }
+
+        if ("setTotalExperience".equals(name)) {
+            totalExperience = (Integer) args[0];
+            return null;
+        }
+
+        if ("getEntityId".equals(name)) {
+            return id.hashCode();
+        }
+
+        if ("toString".equals(name) && (args == null || args.length == 0)) {
+            return "SimPlayer{" + this.name + "}";
+        }
+
+        return StubServer.handleObjectMethod(proxy, method, args);
+
+    }
+
+}
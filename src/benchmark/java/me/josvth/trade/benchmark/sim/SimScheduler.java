@@ -0,0 +1,257 @@
+package me.josvth.trade.benchmark.sim;
+
+import me.josvth.trade.benchmark.StubServer;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Tick driven {@link BukkitScheduler}. Synchronous tasks only run when {@link #tick()} is called, asynchronous tasks run
+ * on a single background thread.
+ */
+public class SimScheduler implements InvocationHandler {
+
+    private final List<SimTask> pending = new ArrayList<SimTask>();
+
+    private final ExecutorService asyncExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "SimScheduler async");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final BukkitScheduler proxy = StubServer.stub(BukkitScheduler.class, this);
+
+    private long currentTick = 0;
+    private int nextID = 1;
+
+    private long scheduled = 0;
+    private long executed = 0;
+    private int executedLastTick = 0;
+    private int maxExecutedPerTick = 0;
+
+    public BukkitScheduler getProxy() {
+        return proxy;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public long getScheduled() {
+        return scheduled;
+    }
+
+    public long getExecuted() {
+        return executed;
+    }
+
+    public int getExecutedLastTick() {
+        return executedLastTick;
+    }
+
+    public int getMaxExecutedPerTick() {
+        return maxExecutedPerTick;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Advances the scheduler by one tick and runs all synchronous tasks that are due.
+     *
+     * @return the amount of tasks that ran during this tick
+     */
+    public int tick() {
+
+        currentTick++;
+
+        // Tasks scheduled while running this tick are due next tick at the earliest
+        final List<SimTask> due = new ArrayList<SimTask>();
+
+        final Iterator<SimTask> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            final SimTask task = iterator.next();
+            if (task.cancelled) {
+                iterator.remove();
+            } else if (task.dueTick <= currentTick) {
+                due.add(task);
+                if (task.period <= 0) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        for (SimTask task : due) {
+            if (!task.cancelled) {
+                task.runnable.run();
+                executed++;
+                if (task.period > 0) {
+                    task.dueTick = currentTick + task.period;
+                }
+            }
+        }
+
+        executedLastTick = due.size();
+        maxExecutedPerTick = Math.max(maxExecutedPerTick, executedLastTick);
+
+        return executedLastTick;
+
+    }
+
+    public void shutdown() {
+        asyncExecutor.shutdownNow();
+    }
+
+    private SimTask schedule(Plugin owner, Runnable runnable, long delay, long period) {
+        final SimTask task = new SimTask(nextID++, owner, runnable, true);
+        task.dueTick = currentTick + Math.max(1, delay);
+        task.period = period;
+        pending.add(task);
+        scheduled++;
+        return task;
+    }
+
+    private SimTask scheduleAsync(Plugin owner, Runnable runnable) {
+        final SimTask task = new SimTask(nextID++, owner, runnable, false);
+        asyncExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (!task.cancelled) {
+                    task.runnable.run();
+                }
+            }
+        });
+        scheduled++;
+        return task;
+    }
+
+    private long argument(Object[] args, int index) {
+        return (args.length > index) ? ((Number) args[index]).longValue() : 0;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        final String name = method.getName();
+
+        if (name.startsWith("runTask") || name.startsWith("schedule")) {
+
+            final Plugin owner = (Plugin) args[0];
+            final Runnable runnable = (Runnable) args[1];
+
+            final SimTask task;
+
+            if (name.contains("Async")) {
+                task = scheduleAsync(owner, runnable);
+            } else if (name.contains("Timer") || name.contains("Repeating")) {
+                task = schedule(owner, runnable, argument(args, 2), Math.max(1, argument(args, 3)));
+            } else {
+                task = schedule(owner, runnable, argument(args, 2), -1);
+            }
+
+            return (method.getReturnType() == int.class) ? task.id : task.getProxy();
+
+        }
+
+        if ("cancelTask".equals(name)) {
+            for (SimTask task : pending) {
+                if (task.id == (Integer) args[0]) {
+                    task.cancelled = true;
+                }
+            }
+            return null;
+        }
+
+        if ("cancelTasks".equals(name) || "cancelAllTasks".equals(name)) {
+            for (SimTask task : pending) {
+                task.cancelled = true;
+            }
+            return null;
+        }
+
+        if ("isQueued".equals(name) || "isCurrentlyRunning".equals(name)) {
+            for (SimTask task : pending) {
+                if (task.id == (Integer) args[0] && !task.cancelled) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return StubServer.handleObjectMethod(proxy, method, args);
+
+    }
+
+    private static class SimTask implements InvocationHandler {
+
+        private final int id;
+        private final Plugin owner;
+        private final Runnable runnable;
+        private final boolean sync;
+
+        private long dueTick;
+        private long period = -1;
+        private volatile boolean cancelled = false;
+
+        private BukkitTask proxy;
+
+        private SimTask(int id, Plugin owner, Runnable runnable, boolean sync) {
+            this.id = id;
+            this.owner = owner;
+            this.runnable = runnable;
+            this.sync = sync;
+        }
+
+        private BukkitTask getProxy() {
+            if (proxy == null) {
+                proxy = StubServer.stub(BukkitTask.class, this);
+            }
+            return proxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            final String name = method.getName();
+
+            if ("getTaskId".equals(name)) {
+                return id;
+            }
+
+            if ("getOwner".equals(name)) {
+                return owner;
+            }
+
+            if ("isSync".equals(name)) {
+                return sync;
+            }
+
+            if ("isCancelled".equals(name)) {
+                return cancelled;
+            }
+
+            if ("cancel".equals(name)) {
+                cancelled = true;
+                return null;
+            }
+
+            return StubServer.handleObjectMethod(proxy, method, args);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,201 @@
+package me.josvth.trade.benchmark.sim;
+
+import me.josvth.trade.benchmark.StubServer;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.ServicesManager;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Headless {@link Server} holding simulated players, a tick driven scheduler and a plugin manager that dispatches
+ * events to registered listeners.
+ */
+public class SimServer extends StubServer {
+
+    private final Map<UUID, SimPlayer> players = new LinkedHashMap<UUID, SimPlayer>();
+    private final Map<String, SimPlayer> playersByName = new HashMap<String, SimPlayer>();
+
+    private final List<Listener> listeners = new ArrayList<Listener>();
+
+    private final SimScheduler scheduler = new SimScheduler();
+
+    private final PluginManager pluginManager = stub(PluginManager.class, new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("registerEvents".equals(method.getName())) {
+                listeners.add((Listener) args[0]);
+                return null;
+            }
+            if ("callEvent".equals(method.getName())) {
+                callEvent((Event) args[0]);
+                return null;
+            }
+            if ("getPlugin".equals(method.getName()) && plugin != null && plugin.getName().equals(args[0])) {
+                return plugin;
+            }
+            if ("isPluginEnabled".equals(method.getName())) {
+                return plugin != null && (args[0] == plugin || plugin.getName().equals(args[0]));
+            }
+            return handleObjectMethod(proxy, method, args);
+        }
+    });
+
+    private final ServicesManager servicesManager = stub(ServicesManager.class, new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return handleObjectMethod(proxy, method, args);
+        }
+    });
+
+    private final World world = stub(World.class, new InvocationHandler() {
+        private final UUID id = UUID.randomUUID();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("getName".equals(method.getName())) {
+                return "world";
+            }
+            if ("getUID".equals(method.getName())) {
+                return id;
+            }
+            return handleObjectMethod(proxy, method, args);
+        }
+    });
+
+    private Server proxy;
+    private Plugin plugin;
+
+    public Server install() {
+        proxy = install(this);
+        if (proxy.getScheduler() != scheduler.getProxy()) {
+            throw new IllegalStateException("Another server was installed before the simulated server.");
+        }
+        return proxy;
+    }
+
+    public Server getProxy() {
+        return proxy;
+    }
+
+    public SimScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public void setPlugin(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public Player createPlayer(String name) {
+        final SimPlayer player = new SimPlayer(this, UUID.randomUUID(), name);
+        players.put(player.getProxy().getUniqueId(), player);
+        playersByName.put(name.toLowerCase(), player);
+        return player.getProxy();
+    }
+
+    public Collection<SimPlayer> getPlayers() {
+        return players.values();
+    }
+
+    public void callEvent(Event event) {
+        for (Listener listener : listeners) {
+            for (Method method : listener.getClass().getMethods()) {
+                if (method.isAnnotationPresent(EventHandler.class) && method.getParameterTypes().length == 1 && method.getParameterTypes()[0].isInstance(event)) {
+                    try {
+                        method.invoke(listener, event);
+                    } catch (InvocationTargetException e) {
+                        throw new RuntimeException(e.getCause());
+                    } catch (IllegalAccessException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        }
+    }
+
+    private Player[] getOnlinePlayers() {
+        final Player[] online = new Player[players.size()];
+        int i = 0;
+        for (SimPlayer player : players.values()) {
+            online[i++] = player.getProxy();
+        }
+        return online;
+    }
+
+    private PluginCommand createCommand(String name) throws Exception {
+        final Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(name, plugin);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        final String name = method.getName();
+
+        if ("getPlayer".equals(name) || "getPlayerExact".equals(name) || "getOfflinePlayer".equals(name)) {
+            final SimPlayer player = (args[0] instanceof UUID) ? players.get(args[0]) : playersByName.get(((String) args[0]).toLowerCase());
+            return (player == null) ? null : player.getProxy();
+        }
+
+        if ("getOnlinePlayers".equals(name)) {
+            return method.getReturnType().isArray() ? getOnlinePlayers() : Arrays.asList(getOnlinePlayers());
+        }
+
+        if ("createInventory".equals(name)) {
+            final InventoryHolder holder = (InventoryHolder) args[0];
+            final int size = (args[1] instanceof InventoryType) ? ((InventoryType) args[1]).getDefaultSize() : (Integer) args[1];
+            final String title = (args.length > 2) ? (String) args[2] : "Chest";
+            return SimInventory.create(holder, size, title);
+        }
+
+        if ("getScheduler".equals(name)) {
+            return scheduler.getProxy();
+        }
+
+        if ("getPluginManager".equals(name)) {
+            return pluginManager;
+        }
+
+        if ("getServicesManager".equals(name)) {
+            return servicesManager;
+        }
+
+        if ("getPluginCommand".equals(name)) {
+            return (plugin == null) ? null : createCommand((String) args[0]);
+        }
+
+        if ("getWorld".equals(name)) {
+            return world;
+        }
+
+        if ("getWorlds".equals(name)) {
+            return Collections.singletonList(world);
+        }
+
+        if ("isPrimaryThread".equals(name)) {
+            return true;
+        }
+
+        return super.invoke(proxy, method, args);
+
+    }
+
+}
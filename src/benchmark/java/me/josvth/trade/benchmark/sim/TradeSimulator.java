@@ -0,0 +1,377 @@
+package me.josvth.trade.benchmark.sim;
+
+import me.josvth.trade.Trade;
+import me.josvth.trade.transaction.Trader;
+import me.josvth.trade.transaction.Transaction;
+import me.josvth.trade.transaction.action.StartAction;
+import me.josvth.trade.transaction.inventory.TransactionHolder;
+import me.josvth.trade.transaction.inventory.slot.*;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginDescriptionFile;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Load driver that runs a few hundred trades side by side against a {@link SimServer} and replays synthetic click and
+ * drag streams into {@link TransactionHolder#onClick(InventoryClickEvent)} and
+ * {@link TransactionHolder#onDrag(InventoryDragEvent)}.
+ *
+ * Usage: TradeSimulator [--trades 500] [--ticks 200] [--events-per-tick 1] [--layout default] [--seed 0]
+ */
+public class TradeSimulator {
+
+    private static final Material[] MATERIALS = {Material.STONE, Material.DIRT, Material.COBBLESTONE, Material.LOG, Material.DIAMOND, Material.IRON_INGOT, Material.ENDER_PEARL, Material.DIAMOND_SWORD};
+
+    private final SimServer server;
+    private final Trade plugin;
+    private final Random random;
+
+    private final List<TradeDriver> drivers = new ArrayList<TradeDriver>();
+
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    // Statistics
+    private long clicks = 0;
+    private long drags = 0;
+    private long clickBytes = 0;
+    private long dragBytes = 0;
+    private long eventNanos = 0;
+    private long tickNanos = 0;
+    private long completedTrades = 0;
+    private long errors = 0;
+
+    public TradeSimulator(SimServer server, Trade plugin, long seed) {
+        this.server = server;
+        this.plugin = plugin;
+        this.random = new Random(seed);
+
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threadBean = (com.sun.management.ThreadMXBean) bean;
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            threadBean = null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        final Map<String, String> options = parseOptions(args);
+
+        final int trades = Integer.parseInt(option(options, "trades", "500"));
+        final int ticks = Integer.parseInt(option(options, "ticks", "200"));
+        final int eventsPerTick = Integer.parseInt(option(options, "events-per-tick", "1"));
+        final String layout = option(options, "layout", null);
+        final long seed = Long.parseLong(option(options, "seed", "0"));
+
+        final SimServer server = new SimServer();
+        server.install();
+
+        final File dataFolder = new File(System.getProperty("java.io.tmpdir"), "trade-simulator-" + System.nanoTime());
+        if (!dataFolder.mkdirs()) {
+            throw new IllegalStateException("Could not create data folder " + dataFolder);
+        }
+
+        final PluginDescriptionFile description = new PluginDescriptionFile(TradeSimulator.class.getClassLoader().getResourceAsStream("plugin.yml"));
+
+        final Trade plugin = new Trade(null, server.getProxy(), description, dataFolder, null);
+        server.setPlugin(plugin);
+        plugin.onEnable();
+
+        if (layout != null) {
+            plugin.getTransactionManager().getOptions().setDefaultLayoutName(layout);
+        }
+
+        final TradeSimulator simulator = new TradeSimulator(server, plugin, seed);
+        simulator.start(trades);
+        simulator.run(ticks, eventsPerTick);
+        simulator.report(trades, ticks);
+
+        plugin.onDisable();
+        server.getScheduler().shutdown();
+
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        final Map<String, String> options = new HashMap<String, String>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static String option(Map<String, String> options, String key, String def) {
+        return options.containsKey(key) ? options.get(key) : def;
+    }
+
+    public void start(int trades) {
+        for (int i = 0; i < trades; i++) {
+            final Player playerA = server.createPlayer("TraderA" + i);
+            final Player playerB = server.createPlayer("TraderB" + i);
+            fillInventory(playerA);
+            fillInventory(playerB);
+            final TradeDriver driver = new TradeDriver(playerA, playerB);
+            driver.startTransaction();
+            drivers.add(driver);
+        }
+        // Let the initial renders run
+        server.getScheduler().tick();
+    }
+
+    public void run(int ticks, int eventsPerTick) {
+        for (int tick = 0; tick < ticks; tick++) {
+
+            final long eventStart = System.nanoTime();
+            for (TradeDriver driver : drivers) {
+                for (int i = 0; i < eventsPerTick; i++) {
+                    try {
+                        driver.step();
+                    } catch (RuntimeException e) {
+                        onError(e);
+                    }
+                }
+            }
+            eventNanos += System.nanoTime() - eventStart;
+
+            final long tickStart = System.nanoTime();
+            try {
+                server.getScheduler().tick();
+            } catch (RuntimeException e) {
+                onError(e);
+            }
+            tickNanos += System.nanoTime() - tickStart;
+
+        }
+    }
+
+    public void report(int trades, int ticks) {
+
+        final long events = clicks + drags;
+        final double eventSeconds = eventNanos / 1e9;
+
+        long messages = 0;
+        for (SimPlayer player : server.getPlayers()) {
+            messages += player.getMessages();
+        }
+
+        final StringBuilder builder = new StringBuilder("Trade simulator results\n");
+        builder.append(String.format("Trades:                %d%n", trades));
+        builder.append(String.format("Ticks:                 %d%n", ticks));
+        builder.append(String.format("Events:                %d (%d clicks, %d drags)%n", events, clicks, drags));
+        builder.append(String.format("Events per second:     %.0f%n", events / eventSeconds));
+        builder.append(String.format("Event handling / tick: %.3f ms%n", eventNanos / 1e6 / ticks));
+        builder.append(String.format("Task execution / tick: %.3f ms%n", tickNanos / 1e6 / ticks));
+        builder.append(String.format("Tasks per tick:        %.1f avg, %d max%n", (double) server.getScheduler().getExecuted() / server.getScheduler().getCurrentTick(), server.getScheduler().getMaxExecutedPerTick()));
+        builder.append(String.format("Tasks scheduled:       %d%n", server.getScheduler().getScheduled()));
+        if (threadBean != null) {
+            builder.append(String.format("Bytes per click:       %.0f%n", (clicks == 0) ? 0D : (double) clickBytes / clicks));
+            builder.append(String.format("Bytes per drag:        %.0f%n", (drags == 0) ? 0D : (double) dragBytes / drags));
+        } else {
+            builder.append("Bytes per click:       unsupported by this JVM\n");
+        }
+        builder.append(String.format("Completed trades:      %d%n", completedTrades));
+        builder.append(String.format("Messages sent:         %d%n", messages));
+        builder.append(String.format("Errors:                %d%n", errors));
+
+        System.out.print(builder.toString());
+
+    }
+
+    private void onError(RuntimeException e) {
+        if (errors++ < 5) {
+            e.printStackTrace();
+        }
+    }
+
+    private void fillInventory(Player player) {
+        for (int i = 0; i < 24; i++) {
+            final Material material = MATERIALS[random.nextInt(MATERIALS.length)];
+            player.getInventory().setItem(i, new ItemStack(material, 1 + random.nextInt(material.getMaxStackSize())));
+        }
+    }
+
+    private long allocatedBytes() {
+        return (threadBean == null) ? 0 : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void click(TransactionHolder holder, int rawSlot, ClickType click, InventoryAction action) {
+
+        final InventoryView view = holder.getTrader().getPlayer().getOpenInventory();
+
+        if (view == null) {
+            return;
+        }
+
+        final InventoryType.SlotType slotType = (rawSlot < view.getTopInventory().getSize()) ? InventoryType.SlotType.CONTAINER : InventoryType.SlotType.QUICKBAR;
+        final InventoryClickEvent event = new InventoryClickEvent(view, slotType, rawSlot, click, action);
+
+        final long before = allocatedBytes();
+        holder.onClick(event);
+        clickBytes += allocatedBytes() - before;
+        clicks++;
+
+    }
+
+    private void drag(TransactionHolder holder, int... rawSlots) {
+
+        final InventoryView view = holder.getTrader().getPlayer().getOpenInventory();
+        final ItemStack cursor = (holder.getCursorOffer() == null) ? null : holder.getCursorOffer().createItem(holder);
+
+        if (view == null || cursor == null) {
+            return;
+        }
+
+        final Map<Integer, ItemStack> slots = new HashMap<Integer, ItemStack>();
+        for (int rawSlot : rawSlots) {
+            slots.put(rawSlot, cursor.clone());
+        }
+
+        final InventoryDragEvent event = new InventoryDragEvent(view, null, cursor, false, slots);
+
+        final long before = allocatedBytes();
+        holder.onDrag(event);
+        dragBytes += allocatedBytes() - before;
+        drags++;
+
+    }
+
+    /**
+     * Drives one pair of players that keep trading with each other. Whenever their transaction ends a new one is
+     * started.
+     */
+    private class TradeDriver {
+
+        private final Player playerA;
+        private final Player playerB;
+
+        private Transaction transaction;
+
+        // Raw slot ids per slot class, all traders of the same layout share these
+        private int[] tradeSlots;
+        private int[] inventorySlots;
+        private int[] experienceSlots;
+        private int[] acceptSlots;
+
+        private TradeDriver(Player playerA, Player playerB) {
+            this.playerA = playerA;
+            this.playerB = playerB;
+        }
+
+        private void startTransaction() {
+            transaction = plugin.getTransactionManager().createTransaction(playerA, playerB);
+            new StartAction(transaction).execute();
+
+            final Slot[] slots = transaction.getTraderA().getHolder().getSlots();
+            tradeSlots = find(slots, TradeSlot.class);
+            inventorySlots = find(slots, InventorySlot.class);
+            experienceSlots = find(slots, ExperienceSlot.class);
+            acceptSlots = find(slots, AcceptSlot.class);
+        }
+
+        private int[] find(Slot[] slots, Class<? extends Slot> clazz) {
+            int count = 0;
+            for (Slot slot : slots) {
+                if (clazz.isInstance(slot)) {
+                    count++;
+                }
+            }
+            final int[] found = new int[count];
+            int i = 0;
+            for (int raw = 0; raw < slots.length; raw++) {
+                if (clazz.isInstance(slots[raw])) {
+                    found[i++] = raw;
+                }
+            }
+            return found;
+        }
+
+        private int pick(TransactionHolder holder, int[] candidates, boolean filled) {
+            if (candidates.length == 0) {
+                return -1;
+            }
+            final int offset = random.nextInt(candidates.length);
+            for (int i = 0; i < candidates.length; i++) {
+                final int raw = candidates[(offset + i) % candidates.length];
+                if ((((ContentSlot) holder.getSlots()[raw]).getContents() != null) == filled) {
+                    return raw;
+                }
+            }
+            return -1;
+        }
+
+        private void step() {
+
+            if (transaction.hasEnded()) {
+                completedTrades++;
+                startTransaction();
+                return;
+            }
+
+            final Trader trader = random.nextBoolean() ? transaction.getTraderA() : transaction.getTraderB();
+            final TransactionHolder holder = trader.getHolder();
+            final int roll = random.nextInt(1000);
+
+            // Put down whatever is on the cursor first
+            if (holder.getCursorOffer() != null) {
+                if (roll < 500) {
+                    final int first = pick(holder, tradeSlots, false);
+                    final int second = pick(holder, tradeSlots, false);
+                    if (first != -1 && second != -1 && first != second) {
+                        drag(holder, first, second);
+                        return;
+                    }
+                }
+                final int empty = pick(holder, inventorySlots, false);
+                if (empty != -1) {
+                    click(holder, empty, ClickType.LEFT, InventoryAction.PLACE_ALL);
+                }
+                return;
+            }
+
+            if (roll < 450) {
+                final int raw = pick(holder, inventorySlots, true);
+                if (raw != -1) {
+                    click(holder, raw, ClickType.SHIFT_LEFT, InventoryAction.MOVE_TO_OTHER_INVENTORY);
+                }
+            } else if (roll < 700) {
+                final int raw = pick(holder, tradeSlots, true);
+                if (raw != -1) {
+                    click(holder, raw, ClickType.SHIFT_LEFT, InventoryAction.MOVE_TO_OTHER_INVENTORY);
+                }
+            } else if (roll < 850) {
+                final int raw = pick(holder, inventorySlots, true);
+                if (raw != -1) {
+                    click(holder, raw, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+                }
+            } else if (roll < 990) {
+                if (experienceSlots.length > 0) {
+                    click(holder, experienceSlots[0], random.nextBoolean() ? ClickType.LEFT : ClickType.RIGHT, InventoryAction.NOTHING);
+                }
+            } else if (acceptSlots.length > 0) {
+                // Both traders accept, ending the trade
+                click(transaction.getTraderA().getHolder(), acceptSlots[0], ClickType.LEFT, InventoryAction.NOTHING);
+                click(transaction.getTraderB().getHolder(), acceptSlots[0], ClickType.LEFT, InventoryAction.NOTHING);
+            }
+
+        }
+
+    }
+
+}
@@ -6,13 +6,17 @@ import me.josvth.trade.request.RequestManager;
 import me.josvth.trade.request.RequestMethod;
 import me.josvth.trade.transaction.Transaction;
 import me.josvth.trade.transaction.TransactionManager;
+import me.josvth.trade.transaction.action.EndAction;
+import me.josvth.trade.transaction.history.TradeHistory;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 import java.util.Arrays;
-import java.util.List;
+import java.util.Collection;
+import java.util.Collections;
 
 public class CommandManager implements CommandExecutor {
 
@@ -46,7 +50,7 @@ public class CommandManager implements CommandExecutor {
                 return executeLayoutCommand(commandSender, Arrays.copyOfRange(args, 1, args.length));
             }
 
-            // /trade ignore
+            // /trade ignore [player]
             if ("ignore".equalsIgnoreCase(args[0])) {
                 return executeIgnoreCommand(commandSender, Arrays.copyOfRange(args, 1, args.length));
             }
@@ -65,6 +69,26 @@ public class CommandManager implements CommandExecutor {
                 }
             }
 
+            // /trade stats <requests>
+            if ("stats".equalsIgnoreCase(args[0])) {
+                return executeStatsCommand(commandSender, Arrays.copyOfRange(args, 1, args.length));
+            }
+
+            // /trade list
+            if ("list".equalsIgnoreCase(args[0])) {
+                return executeListCommand(commandSender, Arrays.copyOfRange(args, 1, args.length));
+            }
+
+            // /trade end <id|player|world|all> [world name]
+            if ("end".equalsIgnoreCase(args[0])) {
+                return executeEndCommand(commandSender, Arrays.copyOfRange(args, 1, args.length));
+            }
+
+            // /trade history <player> [page]
+            if ("history".equalsIgnoreCase(args[0])) {
+                return executeHistoryCommand(commandSender, Arrays.copyOfRange(args, 1, args.length));
+            }
+
             // /trade open
             if ("open".equalsIgnoreCase(args[0])) {
                 return executeOpenCommand(commandSender, Arrays.copyOfRange(args, 1, args.length));
@@ -133,7 +157,148 @@ public class CommandManager implements CommandExecutor {
 
     }
 
-    private boolean executeIgnoreCommand(CommandSender commandSender, String[] strings) {
+    private boolean executeListCommand(CommandSender commandSender, String[] args) {
+
+        if (!plugin.hasPermission(commandSender, "trade.manage")) {
+            getMessageHolder().getMessage("commands.no-permission").send(commandSender);
+            return true;
+        }
+
+        final Collection<Transaction> transactions = getTransactionManager().getTransactions().getAll();
+
+        getMessageHolder().getMessage("commands.list.header").send(commandSender, "%count%", String.valueOf(transactions.size()));
+
+        final long now = System.currentTimeMillis();
+
+        for (Transaction transaction : transactions) {
+            getMessageHolder().getMessage("commands.list.trade").send(commandSender,
+                    "%id%", String.valueOf(transaction.getId()),
+                    "%player%", getName(transaction.getTraderA().getPlayer()),
+                    "%other%", getName(transaction.getTraderB().getPlayer()),
+                    "%seconds%", String.valueOf((now - transaction.getStartDate()) / 1000));
+        }
+
+        return true;
+
+    }
+
+    private static String getName(Player player) {
+        return (player == null) ? "unknown" : player.getName();
+    }
+
+    private boolean executeEndCommand(CommandSender commandSender, String[] args) {
+
+        if (!plugin.hasPermission(commandSender, "trade.manage")) {
+            getMessageHolder().getMessage("commands.no-permission").send(commandSender);
+            return true;
+        }
+
+        if (args.length < 1) {
+            getMessageHolder().getMessage("commands.invalid-usage").send(commandSender, "%usage%", "/trade end <id|player|world <world>|all>");
+            return true;
+        }
+
+        final int ended;
+
+        if ("all".equalsIgnoreCase(args[0])) {
+
+            ended = getTransactionManager().endTransactions(getTransactionManager().getTransactions().getAll(), EndAction.Reason.OPERATOR);
+
+        } else if ("world".equalsIgnoreCase(args[0])) {
+
+            final World world = (args.length > 1) ? plugin.getServer().getWorld(args[1]) : null;
+
+            if (world == null) {
+                getMessageHolder().getMessage("commands.invalid-usage").send(commandSender, "%usage%", "/trade end world <world>");
+                return true;
+            }
+
+            ended = getTransactionManager().endTransactionsInWorld(world, EndAction.Reason.OPERATOR);
+
+        } else {
+
+            Transaction transaction = null;
+
+            try {
+                transaction = getTransactionManager().getTransaction(Long.parseLong(args[0].startsWith("#") ? args[0].substring(1) : args[0]));
+            } catch (NumberFormatException e) {
+                final Player player = plugin.getServer().getPlayer(args[0]);
+                if (player != null) {
+                    transaction = getTransactionManager().getTransaction(player);
+                }
+            }
+
+            ended = (transaction == null) ? 0 : getTransactionManager().endTransactions(Collections.singleton(transaction), EndAction.Reason.OPERATOR);
+
+        }
+
+        getMessageHolder().getMessage("commands.end.ended").send(commandSender, "%count%", String.valueOf(ended));
+
+        return true;
+
+    }
+
+    private boolean executeHistoryCommand(CommandSender commandSender, String[] args) {
+
+        if (!plugin.hasPermission(commandSender, "trade.history")) {
+            getMessageHolder().getMessage("commands.no-permission").send(commandSender);
+            return true;
+        }
+
+        if (args.length < 1) {
+            getMessageHolder().getMessage("commands.invalid-usage").send(commandSender, "%usage%", "/trade history <player> [page]");
+            return true;
+        }
+
+        int page = 1;
+
+        if (args.length > 1) {
+            try {
+                page = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                page = 0;
+            }
+            if (page < 1) {
+                getMessageHolder().getMessage("commands.invalid-usage").send(commandSender, "%usage%", "/trade history <player> [page]");
+                return true;
+            }
+        }
+
+        final TradeHistory history = getTransactionManager().getHistory();
+
+        if (history == null) {
+            getMessageHolder().getMessage("commands.history.disabled").send(commandSender);
+            return true;
+        }
+
+        // Offline players are looked up by the name they had when trading
+        final Player player = plugin.getServer().getPlayerExact(args[0]);
+
+        history.show(commandSender, (player == null) ? null : player.getUniqueId(), args[0], page);
+
+        return true;
+
+    }
+
+    private boolean executeStatsCommand(CommandSender commandSender, String[] args) {
+
+        if (!plugin.hasPermission(commandSender, "trade.stats")) {
+            getMessageHolder().getMessage("commands.no-permission").send(commandSender);
+            return true;
+        }
+
+        if (args.length < 1 || !"requests".equalsIgnoreCase(args[0])) {
+            getMessageHolder().getMessage("commands.invalid-usage").send(commandSender, "%usage%", "/trade stats requests");
+            return true;
+        }
+
+        getRequestManager().getMetrics().sendReport(commandSender, getMessageHolder(), getRequestManager().countActiveRequests());
+
+        return true;
+
+    }
+
+    private boolean executeIgnoreCommand(CommandSender commandSender, String[] args) {
 
         if (!(commandSender instanceof Player)) {
             getMessageHolder().getMessage("commands.player-only").send(commandSender);
@@ -147,7 +312,27 @@ public class CommandManager implements CommandExecutor {
             return true;
         }
 
-        getPlugin().getRequestManager().toggleIgnoring(player);
+        if (args.length == 0) {
+            if (getRequestManager().toggleIgnoring(player)) {
+                getMessageHolder().getMessage("requesting.ignore.everyone.on").send(player);
+            } else {
+                getMessageHolder().getMessage("requesting.ignore.everyone.off").send(player);
+            }
+            return true;
+        }
+
+        final Player other = plugin.getServer().getPlayer(args[0]);
+
+        if (other == null) {
+            getMessageHolder().getMessage("requesting.restriction.offline").send(player);
+            return true;
+        }
+
+        if (getRequestManager().toggleIgnoring(player, other.getUniqueId())) {
+            getMessageHolder().getMessage("requesting.ignore.player.on").send(player, "%player%", other.getName());
+        } else {
+            getMessageHolder().getMessage("requesting.ignore.player.off").send(player, "%player%", other.getName());
+        }
 
         return true;
 
@@ -162,10 +347,10 @@ public class CommandManager implements CommandExecutor {
 
         final Player player = (Player) commandSender;
 
-        final Transaction transaction = getTransactionManager().getTransaction(player.getName());
+        final Transaction transaction = getTransactionManager().getTransaction(player);
 
         if (transaction != null) {
-            transaction.getTrader(player.getName()).openInventory();
+            transaction.getTrader(player.getUniqueId()).openInventory();
         } else {
             getMessageHolder().getMessage("trading.not-trading").send(player);
         }
@@ -186,14 +371,14 @@ public class CommandManager implements CommandExecutor {
         // Check if this player is requested before and tries to accept using /trade request
         if (args == null || args.length == 0) {
 
-            final List<Request> requests = getRequestManager().getActiveRequests(player);
+            final Collection<Request> requests = getRequestManager().getActiveRequests(player);
 
-            if (requests == null || requests.isEmpty()) {
+            if (requests.isEmpty()) {
                 getMessageHolder().getMessage("requesting.not-requested").send(commandSender);
                 return true;
             }
 
-            getRequestManager().submit(Request.createRequest(requests.get(0).getRequesterPlayer(), player, RequestMethod.COMMAND));
+            getRequestManager().submit(Request.createRequest(requests.iterator().next().getRequesterPlayer(), player, RequestMethod.COMMAND));
             return true;
 
         }
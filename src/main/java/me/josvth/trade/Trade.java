@@ -10,9 +10,12 @@ import me.josvth.trade.transaction.inventory.LayoutManager;
 import me.josvth.trade.transaction.inventory.offer.ExperienceOffer;
 import me.josvth.trade.transaction.inventory.slot.*;
 import net.milkbowl.vault.economy.Economy;
+import org.bukkit.Server;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginLoader;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -38,6 +41,20 @@ public class Trade extends JavaPlugin {
     private Economy economy;
 
     public Trade() {
+        createManagers();
+    }
+
+    /**
+     * Creates the plugin outside of a plugin class loader. Only meant for running Trade without a live server, for
+     * example in the trade simulator.
+     */
+    @Deprecated
+    public Trade(PluginLoader loader, Server server, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, server, description, dataFolder, file);
+        createManagers();
+    }
+
+    private void createManagers() {
 
         instance = this;
 
@@ -67,6 +84,7 @@ public class Trade extends JavaPlugin {
         // Load managers
         loadManagers();
 
+        layoutManager.initialize();
         transactionManager.initialize();
         requestManager.initialize();
         commandManager.initialize();
@@ -126,7 +144,6 @@ public class Trade extends JavaPlugin {
         messageManager.getMessageHolder().setKeyWhenMissing(generalConfiguration.getBoolean("debug-mode", false));
         messageManager.loadMessages(messageConfiguration);
 
-        layoutManager.load(layoutConfiguration, messageConfiguration.getConfigurationSection("trading"), generalConfiguration.getConfigurationSection("trading.global-offers"));
         layoutManager.getRegisteredSlots().put("accept", AcceptSlot.class);
         layoutManager.getRegisteredSlots().put("refuse", RefuseSlot.class);
         layoutManager.getRegisteredSlots().put("status", StatusSlot.class);
@@ -137,6 +154,9 @@ public class Trade extends JavaPlugin {
         layoutManager.getRegisteredSlots().put("money", MoneySlot.class);
         layoutManager.getRegisteredSlots().put("experience", ExperienceSlot.class);
 
+        // Slot types have to be registered before the layouts are compiled
+        layoutManager.load(layoutConfiguration, messageConfiguration.getConfigurationSection("trading"), generalConfiguration.getConfigurationSection("trading.global-offers"));
+
         transactionManager.load(generalConfiguration.getConfigurationSection("trading.options"));
 
         requestManager.load(generalConfiguration.getConfigurationSection("requesting"));
@@ -0,0 +1,307 @@
+package me.josvth.trade.request;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per player ignore lists kept in memory and persisted to an append only binary file. Each record is an operation
+ * byte followed by the packed most and least significant bits of the ignoring and the ignored player. Records are
+ * appended on a background thread, the file is compacted when it is loaded.
+ */
+public class IgnoreStore {
+
+    // Ignoring this id means ignoring everyone
+    public static final UUID EVERYONE = new UUID(0, 0);
+
+    private static final int MAGIC = 0x54494753;    // "TIGS"
+    private static final byte VERSION = 1;
+
+    private static final byte REMOVE = 0;
+    private static final byte ADD = 1;
+
+    private final Logger logger;
+
+    private final Map<UUID, Set<UUID>> ignoring = new HashMap<UUID, Set<UUID>>();
+
+    private File file = null;
+    private ExecutorService writer = null;
+
+    // Set by read when the file ends in a torn or unknown record, appending after it would misalign later records
+    private boolean incomplete = false;
+
+    // Only used on the writer thread
+    private DataOutputStream out = null;
+
+    public IgnoreStore(Logger logger) {
+        this.logger = logger;
+    }
+
+    public void load(File file) {
+
+        close();
+
+        this.file = file;
+
+        ignoring.clear();
+
+        int records = 0;
+        boolean broken = false;
+
+        incomplete = false;
+
+        if (file.exists()) {
+            try {
+                records = read(file);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to load ignore lists from " + file.getName(), e);
+                broken = true;
+            }
+        }
+
+        // Keep a broken file around instead of appending to it
+        if (broken && !file.renameTo(new File(file.getPath() + ".broken"))) {
+            logger.warning("Could not move the broken file " + file.getName());
+        }
+
+        // Rewrite the file if most records are outdated or the end is damaged, also writes the header of a new file
+        if (broken || incomplete || !file.exists() || records > 2 * count() + 64) {
+            try {
+                compact(file);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to compact ignore lists in " + file.getName(), e);
+                if (incomplete) {
+                    logger.warning("Changes to ignore lists will not be saved.");
+                    return;
+                }
+            }
+        }
+
+        writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "Trade ignore list writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    }
+
+    public void close() {
+
+        if (writer == null) {
+            return;
+        }
+
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (out != null) {
+                    try {
+                        out.close();
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "Failed to close " + file.getName(), e);
+                    }
+                    out = null;
+                }
+            }
+        });
+
+        writer.shutdown();
+
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warning("Timed out while writing ignore lists.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writer = null;
+
+    }
+
+    public boolean isIgnoring(UUID player, UUID other) {
+        final Set<UUID> ignored = ignoring.get(player);
+        return ignored != null && (ignored.contains(EVERYONE) || ignored.contains(other));
+    }
+
+    public boolean isIgnoringEveryone(UUID player) {
+        final Set<UUID> ignored = ignoring.get(player);
+        return ignored != null && ignored.contains(EVERYONE);
+    }
+
+    /**
+     * Toggles whether the player ignores requests of the other player.
+     *
+     * @param other the ignored player or {@link #EVERYONE}
+     * @return true if the player now ignores the other player
+     */
+    public boolean toggle(UUID player, UUID other) {
+        if (remove(player, other)) {
+            append(REMOVE, player, other);
+            return false;
+        }
+        add(player, other);
+        append(ADD, player, other);
+        return true;
+    }
+
+    public Set<UUID> getIgnored(UUID player) {
+        final Set<UUID> ignored = ignoring.get(player);
+        return (ignored == null) ? Collections.<UUID>emptySet() : Collections.unmodifiableSet(ignored);
+    }
+
+    private void add(UUID player, UUID other) {
+        Set<UUID> ignored = ignoring.get(player);
+        if (ignored == null) {
+            ignored = new HashSet<UUID>(4);
+            ignoring.put(player, ignored);
+        }
+        ignored.add(other);
+    }
+
+    private boolean remove(UUID player, UUID other) {
+        final Set<UUID> ignored = ignoring.get(player);
+        if (ignored == null || !ignored.remove(other)) {
+            return false;
+        }
+        if (ignored.isEmpty()) {
+            ignoring.remove(player);
+        }
+        return true;
+    }
+
+    private int count() {
+        int count = 0;
+        for (Set<UUID> ignored : ignoring.values()) {
+            count += ignored.size();
+        }
+        return count;
+    }
+
+    private void append(final byte operation, final UUID player, final UUID other) {
+
+        if (writer == null) {
+            return;
+        }
+
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (out == null) {
+                        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+                    }
+                    write(out, operation, player, other);
+                    out.flush();
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Failed to write to " + file.getName(), e);
+                }
+            }
+        });
+
+    }
+
+    private int read(File file) throws IOException {
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+        int records = 0;
+
+        try {
+
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Unknown file format.");
+            }
+
+            while (true) {
+
+                final int operation = in.read();
+
+                if (operation == -1) {
+                    break;
+                }
+
+                if (operation != ADD && operation != REMOVE) {
+                    logger.warning("Unknown operation " + operation + " in " + file.getName() + " after " + records + " records, ignoring the rest.");
+                    incomplete = true;
+                    break;
+                }
+
+                final UUID player;
+                final UUID other;
+
+                try {
+                    player = new UUID(in.readLong(), in.readLong());
+                    other = new UUID(in.readLong(), in.readLong());
+                } catch (EOFException e) {
+                    incomplete = true;
+                    break;  // Incomplete last record
+                }
+
+                if (operation == ADD) {
+                    add(player, other);
+                } else {
+                    remove(player, other);
+                }
+
+                records++;
+
+            }
+
+        } finally {
+            in.close();
+        }
+
+        return records;
+
+    }
+
+    private void compact(File file) throws IOException {
+
+        final File temp = new File(file.getPath() + ".tmp");
+
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            for (Map.Entry<UUID, Set<UUID>> entry : ignoring.entrySet()) {
+                for (UUID other : entry.getValue()) {
+                    write(out, ADD, entry.getKey(), other);
+                }
+            }
+        } finally {
+            out.close();
+        }
+
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not replace " + file.getName());
+        }
+
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not rename " + temp.getName());
+        }
+
+    }
+
+    private static void write(DataOutputStream out, byte operation, UUID player, UUID other) throws IOException {
+        out.writeByte(operation);
+        out.writeLong(player.getMostSignificantBits());
+        out.writeLong(player.getLeastSignificantBits());
+        out.writeLong(other.getMostSignificantBits());
+        out.writeLong(other.getLeastSignificantBits());
+    }
+
+}
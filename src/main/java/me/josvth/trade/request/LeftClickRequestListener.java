@@ -0,0 +1,27 @@
+package me.josvth.trade.request;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+
+public class LeftClickRequestListener extends RequestListener {
+
+    public LeftClickRequestListener(RequestManager requestManager) {
+        super(requestManager, RequestMethod.LEFT_CLICK, RequestMethod.SHIFT_LEFT_CLICK);
+    }
+
+    @EventHandler
+    public void onLeftClick(EntityDamageByEntityEvent event) {
+
+        if (!(event.getDamager() instanceof Player) || !(event.getEntity() instanceof Player)) return;
+
+        final Player requester = (Player) event.getDamager();
+        final boolean sneaking = requester.isSneaking();
+
+        if (!isEnabled(sneaking)) return;
+
+        handleEvent(event, requester, (Player) event.getEntity(), sneaking ? RequestMethod.SHIFT_LEFT_CLICK : RequestMethod.LEFT_CLICK);
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package me.josvth.trade.request;
+
+import org.bukkit.entity.Player;
+
+/**
+ * The request related permissions of a player, taken at one moment. Checking a permission is a bit test instead of a
+ * walk over the attachments of the player.
+ */
+public final class PermissionSnapshot {
+
+    // Restriction exclusions are stored after the methods
+    private static final int RESTRICTION_OFFSET = RequestMethod.values().length;
+
+    private final long bits;
+
+    private PermissionSnapshot(long bits) {
+        this.bits = bits;
+    }
+
+    public static PermissionSnapshot of(Player player) {
+
+        long bits = 0;
+
+        for (RequestMethod method : RequestMethod.values()) {
+            if (player.hasPermission(method.permission)) {
+                bits |= 1L << method.ordinal();
+            }
+        }
+
+        final boolean op = player.isOp();
+
+        for (RequestRestriction restriction : RequestRestriction.values()) {
+            if (op || (!restriction.excludePermission.isEmpty() && player.hasPermission(restriction.excludePermission))) {
+                bits |= 1L << (RESTRICTION_OFFSET + restriction.ordinal());
+            }
+        }
+
+        return new PermissionSnapshot(bits);
+
+    }
+
+    public boolean mayUse(RequestMethod method) {
+        return (bits & (1L << method.ordinal())) != 0;
+    }
+
+    public boolean isExcluded(RequestRestriction restriction) {
+        return (bits & (1L << (RESTRICTION_OFFSET + restriction.ordinal()))) != 0;
+    }
+
+}
@@ -0,0 +1,72 @@
+package me.josvth.trade.request;
+
+import java.util.UUID;
+
+/**
+ * Remembers the outcome of the latest submissions per requester and requested pair for a short window. The table is a
+ * fixed size direct mapped cache of primitives, entries expire by age and colliding pairs simply overwrite each other.
+ */
+public class RecentSubmissions {
+
+    // Must be a power of two
+    private static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+
+    private final long[] keys = new long[SIZE];
+    private final long[] times = new long[SIZE];
+    private final RequestRestriction[] restrictions = new RequestRestriction[SIZE];
+
+    /**
+     * Returns the outcome of a submission of the same pair within the window.
+     *
+     * @param window the window in milliseconds
+     * @return the restriction of the earlier submission or null
+     */
+    public RequestRestriction get(UUID requester, UUID requested, long now, long window) {
+
+        final long key = key(requester, requested);
+        final int index = index(key);
+
+        if (restrictions[index] != null && keys[index] == key && now - times[index] <= window) {
+            return restrictions[index];
+        }
+
+        return null;
+
+    }
+
+    public void put(UUID requester, UUID requested, long now, RequestRestriction restriction) {
+        final long key = key(requester, requested);
+        final int index = index(key);
+        keys[index] = key;
+        times[index] = now;
+        restrictions[index] = restriction;
+    }
+
+    public void clear() {
+        for (int i = 0; i < SIZE; i++) {
+            restrictions[i] = null;
+        }
+    }
+
+    private static long key(UUID requester, UUID requested) {
+        long hash = mix(requester.getMostSignificantBits() ^ requester.getLeastSignificantBits());
+        hash = mix(hash ^ requested.getMostSignificantBits());
+        return mix(hash ^ requested.getLeastSignificantBits());
+    }
+
+    private static int index(long key) {
+        return (int) (key ^ (key >>> 32)) & MASK;
+    }
+
+    // Finalizer of the 64 bit MurmurHash3
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -15,6 +15,9 @@ public class Request {
 
     private long submitDate = -1;
 
+    // Tick of the request time out wheel this request expires on, -1 if not scheduled
+    private long timeOutTick = -1;
+
     public static Request createRequest(Player player, Player by, RequestMethod method){
         return new Request((player == null)? null : player.getUniqueId(), (by == null)? null : by.getUniqueId(), method);
     }
@@ -57,4 +60,12 @@ public class Request {
         this.submitDate = submitDate;
     }
 
+    public long getTimeOutTick() {
+        return timeOutTick;
+    }
+
+    public void setTimeOutTick(long timeOutTick) {
+        this.timeOutTick = timeOutTick;
+    }
+
 }
@@ -0,0 +1,127 @@
+package me.josvth.trade.request;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Two way index of pending requests. Requests are indexed by requested player and by requester so lookups, counts and
+ * removals don't depend on the total amount of pending requests.
+ */
+public class RequestIndex {
+
+    // Requested -> requester -> request, in order of submission
+    private final Map<UUID, Map<UUID, Request>> incoming = new HashMap<UUID, Map<UUID, Request>>();
+
+    // Requester -> requested -> request
+    private final Map<UUID, Map<UUID, Request>> outgoing = new HashMap<UUID, Map<UUID, Request>>();
+
+    private int size = 0;
+
+    /**
+     * Adds the request, replacing a pending request between the same players.
+     *
+     * @return the replaced request or null
+     */
+    public Request add(Request request) {
+
+        final Request replaced = put(incoming, request.getRequestedID(), request.getIdRequester(), request);
+        put(outgoing, request.getIdRequester(), request.getRequestedID(), request);
+
+        if (replaced == null) {
+            size++;
+        }
+
+        return replaced;
+
+    }
+
+    /**
+     * Removes this exact request.
+     *
+     * @return true if the request was still pending
+     */
+    public boolean remove(Request request) {
+
+        final Map<UUID, Request> requests = incoming.get(request.getRequestedID());
+
+        if (requests == null || requests.get(request.getIdRequester()) != request) {
+            return false;
+        }
+
+        remove(incoming, request.getRequestedID(), request.getIdRequester());
+        remove(outgoing, request.getIdRequester(), request.getRequestedID());
+        size--;
+
+        return true;
+
+    }
+
+    public Request get(UUID requested, UUID requester) {
+        final Map<UUID, Request> requests = incoming.get(requested);
+        return (requests == null) ? null : requests.get(requester);
+    }
+
+    public boolean contains(UUID requested, UUID requester) {
+        return get(requested, requester) != null;
+    }
+
+    /**
+     * Returns the pending requests to the player, oldest first.
+     */
+    public Collection<Request> getIncoming(UUID requested) {
+        final Map<UUID, Request> requests = incoming.get(requested);
+        return (requests == null) ? Collections.<Request>emptyList() : Collections.unmodifiableCollection(requests.values());
+    }
+
+    /**
+     * Returns the pending requests made by the player.
+     */
+    public Collection<Request> getOutgoing(UUID requester) {
+        final Map<UUID, Request> requests = outgoing.get(requester);
+        return (requests == null) ? Collections.<Request>emptyList() : Collections.unmodifiableCollection(requests.values());
+    }
+
+    public int countIncoming(UUID requested) {
+        final Map<UUID, Request> requests = incoming.get(requested);
+        return (requests == null) ? 0 : requests.size();
+    }
+
+    public int countOutgoing(UUID requester) {
+        final Map<UUID, Request> requests = outgoing.get(requester);
+        return (requests == null) ? 0 : requests.size();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        incoming.clear();
+        outgoing.clear();
+        size = 0;
+    }
+
+    private static Request put(Map<UUID, Map<UUID, Request>> index, UUID key, UUID other, Request request) {
+        Map<UUID, Request> requests = index.get(key);
+        if (requests == null) {
+            requests = new LinkedHashMap<UUID, Request>();
+            index.put(key, requests);
+        }
+        return requests.put(other, request);
+    }
+
+    private static void remove(Map<UUID, Map<UUID, Request>> index, UUID key, UUID other) {
+        final Map<UUID, Request> requests = index.get(key);
+        if (requests != null) {
+            requests.remove(other);
+            if (requests.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+}
@@ -2,14 +2,17 @@ package me.josvth.trade.request;
 
 import me.josvth.bukkitformatlibrary.message.MessageHolder;
 import me.josvth.trade.Trade;
-import me.josvth.trade.tasks.RequestTimeOutTask;
+import me.josvth.trade.tasks.RequestTimeOutWheel;
 import me.josvth.trade.transaction.Transaction;
 import me.josvth.trade.transaction.TransactionManager;
 import me.josvth.trade.transaction.action.StartAction;
+import me.josvth.trade.util.TokenBucket;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.io.File;
 import java.util.*;
 
 public class RequestManager {
@@ -19,32 +22,99 @@ public class RequestManager {
     private final MessageHolder messageHolder;
     private final TransactionManager transactionManager;
 
-    private final RequestListener listener;
+    private final RequestPlayerListener playerListener;
 
     private final RequestOptions options = new RequestOptions();
 
-    private final Set<UUID> ignoring = new HashSet<UUID>();
+    private final IgnoreStore ignoreStore;
 
-    private final Map<UUID, List<Request>> activeRequests = new HashMap<UUID, List<Request>>();
+    private final RequestIndex activeRequests = new RequestIndex();
+
+    private final RequestTimeOutWheel timeOutWheel;
+
+    private final Map<UUID, PermissionSnapshot> permissions = new HashMap<UUID, PermissionSnapshot>();
+
+    private final Map<UUID, TokenBucket> rateLimits = new HashMap<UUID, TokenBucket>();
+
+    private final RecentSubmissions recentSubmissions = new RecentSubmissions();
+
+    private final RequestMetrics metrics = new RequestMetrics();
+    private BukkitTask metricsTask = null;
+    private BukkitTask permissionTask = null;
 
     public RequestManager(Trade plugin, MessageHolder messageHolder, TransactionManager transactionManager) {
         this.plugin = plugin;
         this.messageHolder = messageHolder;
         this.transactionManager = transactionManager;
-        this.listener = new RequestListener(this);
+        this.playerListener = new RequestPlayerListener(this);
+        this.timeOutWheel = new RequestTimeOutWheel(plugin, this);
+        this.ignoreStore = new IgnoreStore(plugin.getLogger());
     }
 
     public void load(ConfigurationSection section) {
         options.load(section);
+        ignoreStore.load(new File(plugin.getDataFolder(), "ignores.dat"));
+        invalidateAllPermissions();
+        rateLimits.clear();
+        recentSubmissions.clear();
+        metrics.reset();
     }
 
     public void initialize() {
-        Bukkit.getPluginManager().registerEvents(listener, plugin);
+
+        registerRequestListener(new RightClickRequestListener(this));
+        registerRequestListener(new LeftClickRequestListener(this));
+        Bukkit.getPluginManager().registerEvents(playerListener, plugin);
+
+        if (options.getMetricsLogInterval() > 0) {
+            final long period = options.getMetricsLogInterval() * 20;
+            metricsTask = Bukkit.getScheduler().runTaskTimer(plugin, new Runnable() {
+                @Override
+                public void run() {
+                    if (metrics.getSubmitted() > 0) {
+                        plugin.getLogger().info(metrics.summarize(activeRequests.size()));
+                    }
+                }
+            }, period, period);
+        }
+
+        // Permission plugins don't tell us when they change permissions
+        if (options.getPermissionRefreshInterval() > 0) {
+            final long period = options.getPermissionRefreshInterval() * 20;
+            permissionTask = Bukkit.getScheduler().runTaskTimer(plugin, new Runnable() {
+                @Override
+                public void run() {
+                    for (Player player : Bukkit.getOnlinePlayers()) {
+                        permissionsChanged(player);
+                    }
+                }
+            }, period, period);
+        }
+
+    }
+
+    // Listeners of disabled methods are not registered at all
+    private void registerRequestListener(RequestListener listener) {
+        if (listener.isEnabled()) {
+            Bukkit.getPluginManager().registerEvents(listener, plugin);
+        }
     }
 
     public void unload() {
-        ignoring.clear();
+        if (metricsTask != null) {
+            metricsTask.cancel();
+            metricsTask = null;
+        }
+        if (permissionTask != null) {
+            permissionTask.cancel();
+            permissionTask = null;
+        }
+        ignoreStore.close();
+        timeOutWheel.clear();
         activeRequests.clear();
+        permissions.clear();
+        rateLimits.clear();
+        recentSubmissions.clear();
     }
 
     public MessageHolder getMessageHolder() {
@@ -55,19 +125,102 @@ public class RequestManager {
         return options;
     }
 
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int countActiveRequests() {
+        return activeRequests.size();
+    }
+
     // Ignoring handling
     public boolean toggleIgnoring(Player player) {
-        if (isIgnoring(player)) {
-            ignoring.remove(player.getUniqueId());
-            return false;
-        } else {
-            ignoring.add(player.getUniqueId());
-            return true;
-        }
+        return ignoreStore.toggle(player.getUniqueId(), IgnoreStore.EVERYONE);
+    }
+
+    public boolean toggleIgnoring(Player player, UUID other) {
+        return ignoreStore.toggle(player.getUniqueId(), other);
     }
 
     public boolean isIgnoring(Player player) {
-        return ignoring.contains(player.getUniqueId());
+        return ignoreStore.isIgnoringEveryone(player.getUniqueId());
+    }
+
+    public boolean isIgnoring(Player player, Player other) {
+        return ignoreStore.isIgnoring(player.getUniqueId(), other.getUniqueId());
+    }
+
+    public IgnoreStore getIgnoreStore() {
+        return ignoreStore;
+    }
+
+    // Permission handling
+    public PermissionSnapshot getPermissions(Player player) {
+        PermissionSnapshot snapshot = permissions.get(player.getUniqueId());
+        if (snapshot == null) {
+            snapshot = refreshPermissions(player);
+        }
+        return snapshot;
+    }
+
+    public PermissionSnapshot refreshPermissions(Player player) {
+        final PermissionSnapshot snapshot = PermissionSnapshot.of(player);
+        permissions.put(player.getUniqueId(), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Takes a new permission snapshot of the player and drops the layouts resolved for the player. Call this when the
+     * permissions of the player might have changed.
+     */
+    public void permissionsChanged(Player player) {
+        refreshPermissions(player);
+        plugin.getLayoutManager().invalidate(player.getUniqueId());
+    }
+
+    /**
+     * Calls {@link #permissionsChanged(Player)} next tick, after a command like /op has been handled.
+     */
+    public void permissionsChangedLater(final String name) {
+        Bukkit.getScheduler().runTask(plugin, new Runnable() {
+            @Override
+            public void run() {
+                final Player player = Bukkit.getPlayerExact(name);
+                if (player != null) {
+                    permissionsChanged(player);
+                }
+            }
+        });
+    }
+
+    public void invalidatePermissions(UUID player) {
+        permissions.remove(player);
+    }
+
+    public void invalidateAllPermissions() {
+        permissions.clear();
+    }
+
+    // Rate limiting
+    private TokenBucket getRateLimit(Player requester) {
+
+        if (options.getRequestsPerSecond() <= 0) {
+            return null;
+        }
+
+        TokenBucket bucket = rateLimits.get(requester.getUniqueId());
+
+        if (bucket == null) {
+            bucket = new TokenBucket(Math.max(1, options.getRequestBurst()), options.getRequestsPerSecond());
+            rateLimits.put(requester.getUniqueId(), bucket);
+        }
+
+        return bucket;
+
+    }
+
+    public void removeRateLimit(UUID player) {
+        rateLimits.remove(player);
     }
 
     // Restriction handling
@@ -86,14 +239,18 @@ public class RequestManager {
             return RequestRestriction.SELF;
         }
 
+        // Only taken after the NPC check, NPCs never quit so their snapshots would never be removed
+        final PermissionSnapshot requesterPermissions = getPermissions(requester);
+        final PermissionSnapshot requestedPermissions = getPermissions(requested);
+
         RequestRestriction restriction = RequestRestriction.ALLOW;
 
         // We check method first
-        if (!mayUseMethod(requester, method)) {
+        if (!mayUseMethod(requesterPermissions, method)) {
             restriction = RequestRestriction.METHOD;
 
             // We directly check for exclusion
-            if (!hasExclusion(requested, restriction)) {
+            if (!requestedPermissions.isExcluded(restriction)) {
                 return restriction;
             }
 
@@ -103,7 +260,7 @@ public class RequestManager {
 //            return RequestRestriction.PERMISSION;
 //        }
 
-        if (isIgnoring(requested)) {
+        if (isIgnoring(requested, requester)) {
             return RequestRestriction.IGNORING;
         }
 
@@ -111,11 +268,13 @@ public class RequestManager {
             return RequestRestriction.BUSY;
         }
 
-        if (isRequested(requested, requester)) {
+        if (activeRequests.contains(requested.getUniqueId(), requester.getUniqueId())) {
             return RequestRestriction.PENDING;
         }
 
-        if (!hasExclusion(requester, RequestRestriction.FLOOD) && countRequestsBy(requester) >= options.getMaxRequests()) {
+        final TokenBucket rateLimit = requesterPermissions.isExcluded(RequestRestriction.FLOOD) ? null : getRateLimit(requester);
+
+        if (rateLimit != null && !rateLimit.hasToken()) {
             return RequestRestriction.FLOOD;
         }
 
@@ -131,135 +290,104 @@ public class RequestManager {
             restriction = RequestRestriction.WORLD;
         }// TODO ADD REGION CHECK
 
-        if (restriction != RequestRestriction.ALLOW && hasExclusion(requested, restriction)) {
-            return RequestRestriction.ALLOW;
+        if (restriction != RequestRestriction.ALLOW && requestedPermissions.isExcluded(restriction)) {
+            restriction = RequestRestriction.ALLOW;
         }
 
-        return restriction;
+        // Only allowed requests take a token
+        if (restriction == RequestRestriction.ALLOW && rateLimit != null) {
+            rateLimit.tryConsume();
+        }
 
-    }
+        return restriction;
 
-    private boolean hasExclusion(Player player, RequestRestriction restriction) {
-        return player.hasPermission(restriction.excludePermission) || player.isOp();
     }
 
-    private boolean mayUseMethod(Player requester, RequestMethod method) {
+    private boolean mayUseMethod(PermissionSnapshot requester, RequestMethod method) {
 
         // First we check permissions
-        if (!requester.hasPermission(method.permission)) {
+        if (!requester.mayUse(method)) {
             return false;
         }
 
         // Next we check if the request option is enabled
-        switch (method) {
-            case COMMAND:
-                return getOptions().allowCommandRequest();
-            case LEFT_CLICK:
-                return getOptions().allowLeftClickRequest();
-            case SHIFT_LEFT_CLICK:
-                return getOptions().allowLeftShiftClickRequest();
-            case RIGHT_CLICK:
-                return getOptions().allowRightClickRequest();
-            case SHIFT_RIGHT_CLICK:
-                return options.allowRightShiftClickRequest();
-        }
-        return true;
+        return options.isMethodEnabled(method);
     }
 
 
 
-    private boolean isRequested(Player player, Player by) {
-
-        final List<Request> list = getActiveRequests(player);
-
-        if (list == null) return false;
-
-        for (Request request : list) {
-            if (request.getIdRequester().equals(by.getUniqueId())) {
-                return true;
-            }
-        }
-
-        return false;
-
+    // Current request methods
+    private Request getRequest(Player player, Player by) {
+        return activeRequests.get(player.getUniqueId(), by.getUniqueId());
     }
 
-    private int countRequestsBy(Player player) {
-        int amount = 0;
-        for (List<Request> requests : activeRequests.values()) {
-            for (Request request : requests) {
-                if (request.getIdRequester() == player.getUniqueId()) {
-                    amount++;
-                }
-            }
+    private void addRequest(Request request) {
+        final Request replaced = activeRequests.add(request);
+        if (replaced != null) {
+            timeOutWheel.cancel(replaced);
         }
-        return amount;
     }
 
-    // Current request methods
-    private Request getRequest(Player player, Player by) {
-
-        final List<Request> set = getActiveRequests(player);
-
-        if (set == null) return null;
+    public boolean removeRequest(Request request) {
+        timeOutWheel.cancel(request);
+        return activeRequests.remove(request);
+    }
 
-        for (Request request : set) {
-            if (request.getIdRequester() == by.getUniqueId()) {
-                return request;
+    /**
+     * Called by the time out wheel when the request expired.
+     */
+    public void timeOut(Request request) {
+        if (removeRequest(request)) {
+            metrics.recordTimeOut();
+            final Player player = request.getRequesterPlayer();
+            if (player != null) {
+                final Player requested = request.getRequestedPlayer();
+                messageHolder.getMessage("requesting.timeout").send(player, "%player%", (requested != null) ? requested.getName() : "unknown");
             }
         }
-
-        return null;
-
     }
 
-    private boolean addRequest(Request request) {
+    /**
+     * Returns the pending requests to the player, oldest first.
+     */
+    public Collection<Request> getActiveRequests(Player player) {
+        return activeRequests.getIncoming(player.getUniqueId());
+    }
 
-        List<Request> list = getActiveRequests(request.getRequestedPlayer());
+    public RequestIndex getRequestIndex() {
+        return activeRequests;
+    }
 
-        if (list == null) {
-            list = new LinkedList<Request>();
-            setActiveRequests(request.getRequestedPlayer(), list);
+    public RequestResponse submit(Request request) {
+        final long start = System.nanoTime();
+        try {
+            return submit(request, System.currentTimeMillis());
+        } finally {
+            metrics.recordSubmit(System.nanoTime() - start);
         }
-
-        return list.add(request);
-
     }
 
-    public boolean removeRequest(Request request) {
-
-        final List<Request> list = getActiveRequests(request.getRequestedPlayer());
+    private RequestResponse submit(Request request, long now) {
 
-        if (list != null) {
+        // Repeated submissions of the same pair within the window get the outcome of the first one
+        if (request.getIdRequester() != null && request.getRequestedID() != null && options.getDuplicateWindowMillis() > 0) {
 
-            final boolean removed = list.remove(request);
+            final RequestRestriction previous = recentSubmissions.get(request.getIdRequester(), request.getRequestedID(), now, options.getDuplicateWindowMillis());
 
-            if (list.isEmpty()) {
-                setActiveRequests(request.getRequestedPlayer(), null);
+            if (previous != null) {
+                metrics.recordDuplicate();
+                return new RequestResponse(request, previous, null);
             }
 
-            return removed;
-
         }
 
-        return false;
-
-    }
+        final RequestRestriction restriction = mayRequest(request.getRequesterPlayer(), request.getRequestedPlayer(), request.getMethod());
 
-    public List<Request> getActiveRequests(Player player) {
-        return activeRequests.get(player.getUniqueId());
-    }
+        metrics.recordOutcome(restriction);
 
-    private List<Request> setActiveRequests(Player player, List<Request> list) {
-        if (list == null) {
-            return activeRequests.remove(player.getUniqueId());
+        if (request.getIdRequester() != null && request.getRequestedID() != null) {
+            recentSubmissions.put(request.getIdRequester(), request.getRequestedID(), now, restriction);
         }
-        return activeRequests.put(player.getUniqueId(), list);
-    }
-
-    public RequestResponse submit(Request request) {
-
-        final RequestRestriction restriction = mayRequest(request.getRequesterPlayer(), request.getRequestedPlayer(), request.getMethod());
 
         if (restriction == RequestRestriction.ALLOW) {
 
@@ -271,6 +399,7 @@ public class RequestManager {
 
                 // We remove the counter request from the active requests
                 removeRequest(counterRequest);
+                metrics.recordAccept(now - counterRequest.getSubmitDate());
 
                 final Transaction transaction = transactionManager.createTransaction(counterRequest.getRequesterPlayer(), counterRequest.getRequestedPlayer());
 
@@ -282,8 +411,9 @@ public class RequestManager {
 
             // If not we add this request to the active requests
             addRequest(request);
-            request.setSubmitDate(System.currentTimeMillis());
-            Bukkit.getScheduler().runTaskLater(plugin, new RequestTimeOutTask(this, request), options.getTimeoutMillis() / 50);
+            request.setSubmitDate(now);
+            timeOutWheel.schedule(request, options.getTimeoutMillis() / 50);
+            metrics.recordActive(activeRequests.size());
 
             // And send a message to the requested
             messageHolder.getMessage("requesting.requested-by").send(request.getRequestedPlayer(), "%player%", request.getRequesterPlayer().getName());
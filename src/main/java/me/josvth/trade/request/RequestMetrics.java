@@ -0,0 +1,143 @@
+package me.josvth.trade.request;
+
+import me.josvth.bukkitformatlibrary.message.MessageHolder;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Counters of the request life cycle since the request manager was loaded.
+ */
+public class RequestMetrics {
+
+    private final long[] outcomes = new long[RequestRestriction.values().length];
+
+    private long started = System.currentTimeMillis();
+
+    private long submitted = 0;
+    private long duplicates = 0;
+    private long submitNanos = 0;
+
+    private long accepted = 0;
+    private long acceptMillis = 0;
+    private long maxAcceptMillis = 0;
+
+    private long timedOut = 0;
+
+    private int peakActive = 0;
+
+    public void reset() {
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = 0;
+        }
+        started = System.currentTimeMillis();
+        submitted = duplicates = submitNanos = 0;
+        accepted = acceptMillis = maxAcceptMillis = 0;
+        timedOut = 0;
+        peakActive = 0;
+    }
+
+    public void recordSubmit(long nanos) {
+        submitted++;
+        submitNanos += nanos;
+    }
+
+    public void recordOutcome(RequestRestriction restriction) {
+        outcomes[restriction.ordinal()]++;
+    }
+
+    public void recordDuplicate() {
+        duplicates++;
+    }
+
+    public void recordAccept(long latencyMillis) {
+        accepted++;
+        acceptMillis += latencyMillis;
+        maxAcceptMillis = Math.max(maxAcceptMillis, latencyMillis);
+    }
+
+    public void recordTimeOut() {
+        timedOut++;
+    }
+
+    public void recordActive(int active) {
+        peakActive = Math.max(peakActive, active);
+    }
+
+    public long getOutcome(RequestRestriction restriction) {
+        return outcomes[restriction.ordinal()];
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    public int getPeakActive() {
+        return peakActive;
+    }
+
+    public double getAverageAcceptMillis() {
+        return (accepted == 0) ? 0 : (double) acceptMillis / accepted;
+    }
+
+    public double getAverageSubmitMicros() {
+        return (submitted == 0) ? 0 : submitNanos / 1000D / submitted;
+    }
+
+    public double getMicrosPerTick() {
+        final long ticks = Math.max(1, (System.currentTimeMillis() - started) / 50);
+        return submitNanos / 1000D / ticks;
+    }
+
+    /**
+     * Returns the share of submissions with the given outcome in percent.
+     */
+    public double getPercentage(RequestRestriction restriction) {
+        final long total = submitted - duplicates;
+        return (total <= 0) ? 0 : 100D * getOutcome(restriction) / total;
+    }
+
+    /**
+     * Single line summary for the server log.
+     */
+    public String summarize(int active) {
+        return String.format("Requests: %d submitted (%d duplicate), %d accepted, %d timed out, %d active (peak %d), %.1f%% allowed, %.1f%% distance, %.1f%% flood, %.1f us/submit, %.2f us/tick",
+                submitted, duplicates, accepted, timedOut, active, peakActive,
+                getPercentage(RequestRestriction.ALLOW), getPercentage(RequestRestriction.DISTANCE), getPercentage(RequestRestriction.FLOOD),
+                getAverageSubmitMicros(), getMicrosPerTick());
+    }
+
+    /**
+     * Sends the detailed report of the stats command.
+     */
+    public void sendReport(CommandSender sender, MessageHolder messages, int active) {
+
+        messages.getMessage("commands.stats.requests.header").send(sender, "%minutes%", String.valueOf((System.currentTimeMillis() - started) / 60000));
+        messages.getMessage("commands.stats.requests.submitted").send(sender, "%submitted%", String.valueOf(submitted), "%duplicates%", String.valueOf(duplicates));
+
+        for (RequestRestriction restriction : RequestRestriction.values()) {
+            if (getOutcome(restriction) > 0) {
+                messages.getMessage("commands.stats.requests.outcome").send(sender, "%restriction%", restriction.name().toLowerCase(), "%count%", String.valueOf(getOutcome(restriction)), "%percentage%", String.format("%.1f", getPercentage(restriction)));
+            }
+        }
+
+        messages.getMessage("commands.stats.requests.accepted").send(sender, "%accepted%", String.valueOf(accepted), "%average%", String.format("%.0f", getAverageAcceptMillis()), "%max%", String.valueOf(maxAcceptMillis));
+
+        final long pending = accepted + timedOut;
+        messages.getMessage("commands.stats.requests.timed-out").send(sender, "%timed-out%", String.valueOf(timedOut), "%percentage%", String.format("%.1f", (pending == 0) ? 0 : 100D * timedOut / pending));
+        messages.getMessage("commands.stats.requests.active").send(sender, "%active%", String.valueOf(active), "%peak%", String.valueOf(peakActive));
+        messages.getMessage("commands.stats.requests.cost").send(sender, "%submit%", String.format("%.1f", getAverageSubmitMicros()), "%tick%", String.format("%.2f", getMicrosPerTick()));
+
+    }
+
+}
@@ -16,7 +16,11 @@ public class RequestOptions {
 
     // Request method options
     private long timeoutMillis = 10000;
-    private int maxRequests = 5;
+    private long duplicateWindowMillis = 100;
+    private long metricsLogInterval = 0;
+    private long permissionRefreshInterval = 60;
+    private int requestBurst = 5;
+    private double requestsPerSecond = 0.5;
 
     private boolean allowCommandRequest = true;
     private boolean allowRightClickRequest = true;
@@ -34,7 +38,12 @@ public class RequestOptions {
         setDisabledRegions(section.getStringList("disabled-regions"));
 
         setTimeoutMillis(section.getLong("timeout", getTimeoutMillis()));
-        setMaxRequests(section.getInt("max-requests", getMaxRequests()));
+        setDuplicateWindowMillis(section.getLong("duplicate-window", getDuplicateWindowMillis()));
+        setMetricsLogInterval(section.getLong("metrics-log-interval", getMetricsLogInterval()));
+        setPermissionRefreshInterval(section.getLong("permission-refresh-interval", getPermissionRefreshInterval()));
+        // The old max-requests option is used as burst size
+        setRequestBurst(section.getInt("rate-limit.burst", section.getInt("max-requests", getRequestBurst())));
+        setRequestsPerSecond(section.getDouble("rate-limit.per-second", getRequestsPerSecond()));
 
         setAllowCommandRequest(section.getBoolean("method-allow.command", isAllowCommandRequest()));
         setAllowRightClickRequest(section.getBoolean("method-allow.right-click", isAllowRightClickRequest()));
@@ -84,6 +93,31 @@ public class RequestOptions {
         this.timeoutMillis = timeoutMillis;
     }
 
+    public long getDuplicateWindowMillis() {
+        return duplicateWindowMillis;
+    }
+
+    public void setDuplicateWindowMillis(long duplicateWindowMillis) {
+        this.duplicateWindowMillis = duplicateWindowMillis;
+    }
+
+    // Seconds between request statistics in the log, 0 disables them
+    public long getMetricsLogInterval() {
+        return metricsLogInterval;
+    }
+
+    public void setMetricsLogInterval(long metricsLogInterval) {
+        this.metricsLogInterval = metricsLogInterval;
+    }
+
+    public long getPermissionRefreshInterval() {
+        return permissionRefreshInterval;
+    }
+
+    public void setPermissionRefreshInterval(long permissionRefreshInterval) {
+        this.permissionRefreshInterval = permissionRefreshInterval;
+    }
+
     public List<String> getDisabledWorlds() {
         return disabledWorlds;
     }
@@ -140,12 +174,36 @@ public class RequestOptions {
         this.allowShiftLeftClickRequest = allowShiftLeftClickRequest;
     }
 
-    public int getMaxRequests() {
-        return maxRequests;
+    public boolean isMethodEnabled(RequestMethod method) {
+        switch (method) {
+            case COMMAND:
+                return allowCommandRequest();
+            case LEFT_CLICK:
+                return allowLeftClickRequest();
+            case SHIFT_LEFT_CLICK:
+                return allowLeftShiftClickRequest();
+            case RIGHT_CLICK:
+                return allowRightClickRequest();
+            case SHIFT_RIGHT_CLICK:
+                return allowRightShiftClickRequest();
+        }
+        return true;
+    }
+
+    public int getRequestBurst() {
+        return requestBurst;
+    }
+
+    public void setRequestBurst(int requestBurst) {
+        this.requestBurst = requestBurst;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
     }
 
-    public void setMaxRequests(int maxRequests) {
-        this.maxRequests = maxRequests;
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
     }
 
     public boolean isAllowCrossGameMode() {
@@ -0,0 +1,75 @@
+package me.josvth.trade.request;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+
+/**
+ * Keeps the per player state of the request manager up to date.
+ */
+public class RequestPlayerListener implements Listener {
+
+    private final RequestManager requestManager;
+
+    public RequestPlayerListener(RequestManager requestManager) {
+        this.requestManager = requestManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        requestManager.refreshPermissions(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        requestManager.invalidatePermissions(event.getPlayer().getUniqueId());
+        requestManager.removeRateLimit(event.getPlayer().getUniqueId());
+    }
+
+    // Permission plugins can grant different permissions per world
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        requestManager.permissionsChanged(event.getPlayer());
+    }
+
+    // Other permission changes are picked up by the periodic refresh of the request manager
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        checkOpCommand(event.getMessage());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerCommand(ServerCommandEvent event) {
+        checkOpCommand(event.getCommand());
+    }
+
+    private void checkOpCommand(String command) {
+
+        final String[] args = command.trim().split("\\s+");
+
+        if (args.length < 2) {
+            return;
+        }
+
+        String label = args[0].toLowerCase();
+
+        if (label.startsWith("/")) {
+            label = label.substring(1);
+        }
+
+        if (label.startsWith("minecraft:")) {
+            label = label.substring("minecraft:".length());
+        }
+
+        if ("op".equals(label) || "deop".equals(label)) {
+            requestManager.permissionsChangedLater(args[1]);
+        }
+
+    }
+
+}
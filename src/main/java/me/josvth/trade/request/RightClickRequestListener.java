@@ -0,0 +1,27 @@
+package me.josvth.trade.request;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+
+public class RightClickRequestListener extends RequestListener {
+
+    public RightClickRequestListener(RequestManager requestManager) {
+        super(requestManager, RequestMethod.RIGHT_CLICK, RequestMethod.SHIFT_RIGHT_CLICK);
+    }
+
+    @EventHandler
+    public void onRightClick(PlayerInteractEntityEvent event) {
+
+        if (!(event.getRightClicked() instanceof Player)) return;
+
+        final Player requester = event.getPlayer();
+        final boolean sneaking = requester.isSneaking();
+
+        if (!isEnabled(sneaking)) return;
+
+        handleEvent(event, requester, (Player) event.getRightClicked(), sneaking ? RequestMethod.SHIFT_RIGHT_CLICK : RequestMethod.RIGHT_CLICK);
+
+    }
+
+}
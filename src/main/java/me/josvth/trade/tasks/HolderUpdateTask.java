@@ -0,0 +1,55 @@
+package me.josvth.trade.tasks;
+
+import me.josvth.trade.transaction.inventory.TransactionHolder;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Renders the dirty slots of all queued holders. At most one task is scheduled per tick, no matter how many holders
+ * changed or how often.
+ */
+public class HolderUpdateTask implements Runnable {
+
+    private final Plugin plugin;
+
+    private final Set<TransactionHolder> queued = new LinkedHashSet<TransactionHolder>();
+
+    private boolean scheduled = false;
+
+    public HolderUpdateTask(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public void queue(TransactionHolder holder) {
+        queued.add(holder);
+        if (!scheduled) {
+            Bukkit.getScheduler().runTask(plugin, this);
+            scheduled = true;
+        }
+    }
+
+    public void clear() {
+        queued.clear();
+        // A scheduled flush is cancelled when the plugin is disabled so it will never reset this itself
+        scheduled = false;
+    }
+
+    @Override
+    public void run() {
+
+        scheduled = false;
+
+        // Holders queued while flushing are rendered next tick
+        final TransactionHolder[] holders = queued.toArray(new TransactionHolder[queued.size()]);
+        queued.clear();
+
+        for (TransactionHolder holder : holders) {
+            holder.flush();
+        }
+
+    }
+
+}
@@ -0,0 +1,145 @@
+package me.josvth.trade.tasks;
+
+import me.josvth.trade.request.Request;
+import me.josvth.trade.request.RequestManager;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel that times out all pending requests from a single repeating task. A request is put in the
+ * bucket of the tick it expires on, each tick only the current bucket is checked. The task only runs while requests
+ * are pending.
+ */
+public class RequestTimeOutWheel implements Runnable {
+
+    // Must be a power of two, covers 12.8 seconds of ticks per rotation
+    private static final int WHEEL_SIZE = 256;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final Plugin plugin;
+    private final RequestManager manager;
+
+    private final Set<Request>[] buckets;
+
+    private long tick = 0;
+    private int size = 0;
+
+    private BukkitTask task = null;
+
+    public RequestTimeOutWheel(Plugin plugin, RequestManager manager) {
+        this.plugin = plugin;
+        this.manager = manager;
+        this.buckets = new Set[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets[i] = new LinkedHashSet<Request>();
+        }
+    }
+
+    /**
+     * Schedules the request to time out after the given amount of ticks.
+     */
+    public void schedule(Request request, long delay) {
+
+        cancel(request);
+
+        final long timeOutTick = tick + Math.max(1, delay);
+
+        request.setTimeOutTick(timeOutTick);
+        buckets[(int) (timeOutTick & MASK)].add(request);
+        size++;
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this, 1, 1);
+        }
+
+    }
+
+    /**
+     * Removes the request from the wheel.
+     *
+     * @return true if the request was scheduled
+     */
+    public boolean cancel(Request request) {
+
+        if (request.getTimeOutTick() < 0) {
+            return false;
+        }
+
+        final boolean removed = buckets[(int) (request.getTimeOutTick() & MASK)].remove(request);
+
+        request.setTimeOutTick(-1);
+
+        if (removed && --size == 0) {
+            stop();
+        }
+
+        return removed;
+
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (Set<Request> bucket : buckets) {
+            for (Request request : bucket) {
+                request.setTimeOutTick(-1);
+            }
+            bucket.clear();
+        }
+        size = 0;
+        stop();
+    }
+
+    private void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    @Override
+    public void run() {
+
+        tick++;
+
+        final Set<Request> bucket = buckets[(int) (tick & MASK)];
+
+        if (bucket.isEmpty()) {
+            return;
+        }
+
+        // Requests more than one rotation away stay in the bucket
+        final List<Request> expired = new ArrayList<Request>();
+
+        final Iterator<Request> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            final Request request = iterator.next();
+            if (request.getTimeOutTick() <= tick) {
+                iterator.remove();
+                request.setTimeOutTick(-1);
+                expired.add(request);
+            }
+        }
+
+        size -= expired.size();
+
+        if (size == 0) {
+            stop();
+        }
+
+        for (Request request : expired) {
+            manager.timeOut(request);
+        }
+
+    }
+
+}
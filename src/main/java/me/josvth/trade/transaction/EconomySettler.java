@@ -0,0 +1,197 @@
+package me.josvth.trade.transaction;
+
+import me.josvth.trade.Trade;
+import net.milkbowl.vault.economy.Economy;
+import net.milkbowl.vault.economy.EconomyResponse;
+import org.bukkit.Bukkit;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Transfers money between two players, on a background thread if the economy provider is known to be thread safe.
+ * <p/>
+ * If the deposit fails after the withdrawal succeeded the withdrawal is rolled back.
+ */
+public class EconomySettler {
+
+    private static final int QUEUE_SIZE = 256;
+
+    private final Trade plugin;
+
+    private ThreadPoolExecutor executor = null;
+
+    // Callbacks of finished transfers waiting for the main thread
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<Runnable>();
+
+    public EconomySettler(Trade plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start(boolean async) {
+
+        if (!async) {
+            return;
+        }
+
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "Trade economy settler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    }
+
+    public void stop() {
+
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out while settling trades, " + executor.getQueue().size() + " settlements are lost.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        executor = null;
+
+        // The plugin is disabled so the scheduled callbacks won't run, they are run here on the main thread
+        runCompletions();
+
+    }
+
+    public boolean isAsync() {
+        return executor != null;
+    }
+
+    /**
+     * Transfers the amount from the payer to the payee. The callback is always called on the main thread.
+     */
+    public void transfer(final String payer, final String payee, final double amount, final Callback callback) {
+
+        if (executor != null) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        complete(transfer(payer, payee, amount), callback);
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                plugin.getLogger().warning("Economy settlement queue is full, settling on the main thread.");
+            }
+        }
+
+        callback.onComplete(transfer(payer, payee, amount));
+
+    }
+
+    private void complete(final boolean success, final Callback callback) {
+
+        completions.add(new Runnable() {
+            @Override
+            public void run() {
+                callback.onComplete(success);
+            }
+        });
+
+        // While disabling the callbacks are run by stop()
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, new Runnable() {
+                @Override
+                public void run() {
+                    runCompletions();
+                }
+            });
+        }
+
+    }
+
+    private void runCompletions() {
+        Runnable completion;
+        while ((completion = completions.poll()) != null) {
+            completion.run();
+        }
+    }
+
+    private boolean transfer(String payer, String payee, double amount) {
+
+        final Economy economy = plugin.getEconomy();
+
+        if (economy == null) {
+            plugin.getLogger().warning("Could not transfer " + amount + " from " + payer + " to " + payee + ", no economy found.");
+            return false;
+        }
+
+        final EconomyResponse withdrawal;
+
+        try {
+            withdrawal = economy.withdrawPlayer(payer, amount);
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not withdraw " + amount + " from " + payer + ".", e);
+            return false;
+        }
+
+        if (!withdrawal.transactionSuccess()) {
+            plugin.getLogger().warning("Could not withdraw " + amount + " from " + payer + ": " + withdrawal.errorMessage);
+            return false;
+        }
+
+        boolean deposited;
+
+        try {
+            final EconomyResponse deposit = economy.depositPlayer(payee, amount);
+            deposited = deposit.transactionSuccess();
+            if (!deposited) {
+                plugin.getLogger().warning("Could not deposit " + amount + " to " + payee + ": " + deposit.errorMessage);
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not deposit " + amount + " to " + payee + ".", e);
+            deposited = false;
+        }
+
+        if (!deposited) {
+            rollback(economy, payer, amount);
+        }
+
+        return deposited;
+
+    }
+
+    private void rollback(Economy economy, String payer, double amount) {
+
+        try {
+            final EconomyResponse refund = economy.depositPlayer(payer, amount);
+            if (refund.transactionSuccess()) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.SEVERE, "Exception while refunding " + amount + " to " + payer + ".", e);
+        }
+
+        plugin.getLogger().severe("Could not refund " + amount + " to " + payer + ", the money is lost!");
+
+    }
+
+    public interface Callback {
+
+        void onComplete(boolean success);
+
+    }
+
+}
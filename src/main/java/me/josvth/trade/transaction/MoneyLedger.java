@@ -0,0 +1,132 @@
+package me.josvth.trade.transaction;
+
+import me.josvth.trade.transaction.inventory.offer.MoneyOffer;
+import net.milkbowl.vault.economy.Economy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps track of the money offered in a transaction without touching the economy on every click.
+ * <p/>
+ * The balance of a trader is read once when money is first offered. Offered money stays in the account of the
+ * trader and is only transferred when the transaction is accepted, as a single net transfer between the traders
+ * by the {@link EconomySettler}. Because the money can be spent elsewhere in the meantime the balance is read again
+ * when a trader accepts, see {@link #isCovered(Trader)}.
+ */
+public class MoneyLedger {
+
+    // Offered money is summed as doubles, differences below this are rounding errors
+    private static final double EPSILON = 1.0E-6;
+
+    private final Transaction transaction;
+
+    private final Map<UUID, Double> balances = new HashMap<UUID, Double>(2);
+
+    // Formatted amounts, the messages of a trade mostly repeat the same few amounts
+    private final Map<Double, String> formatted = new HashMap<Double, String>();
+
+    public MoneyLedger(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    private Economy getEconomy() {
+        return transaction.getPlugin().getEconomy();
+    }
+
+    /**
+     * Returns the balance of the trader as it was when money was first offered.
+     */
+    public double getBalance(Trader trader) {
+        Double balance = balances.get(trader.getID());
+        if (balance == null) {
+            balance = getEconomy().getBalance(trader.getName());
+            balances.put(trader.getID(), balance);
+        }
+        return balance;
+    }
+
+    /**
+     * Forgets the balance of the trader so it is read from the economy again when it is needed.
+     */
+    public void refresh(Trader trader) {
+        balances.remove(trader.getID());
+    }
+
+    /**
+     * Reads the balance of the trader again and checks if it still covers the money the trader has in the trade.
+     */
+    public boolean isCovered(Trader trader) {
+
+        if (getEscrowed(trader) < EPSILON) {
+            return true;
+        }
+
+        refresh(trader);
+
+        return getAvailable(trader) + EPSILON >= 0;
+
+    }
+
+    /**
+     * Formats the amount with the economy, caching the result.
+     */
+    public String format(double amount) {
+
+        String result = formatted.get(amount);
+
+        if (result == null) {
+            if (formatted.size() >= 32) {
+                formatted.clear();
+            }
+            result = getEconomy().format(amount);
+            formatted.put(amount, result);
+        }
+
+        return result;
+
+    }
+
+    /**
+     * Returns the money the trader has in the trade, including money put in the inventory of the trade.
+     */
+    public double getEscrowed(Trader trader) {
+        return trader.getOffers().getTotal(MoneyOffer.TYPE_NAME) + trader.getHolder().getInventoryList().getTotal(MoneyOffer.TYPE_NAME);
+    }
+
+    /**
+     * Returns the money the trader can still offer.
+     */
+    public double getAvailable(Trader trader) {
+        return getBalance(trader) - getEscrowed(trader);
+    }
+
+    public boolean has(Trader trader, double amount) {
+        return getAvailable(trader) + EPSILON >= amount;
+    }
+
+    /**
+     * Transfers the net difference of the money in the trade lists between both traders. The callback receives false
+     * if the difference could not be transferred, nothing is changed in that case.
+     */
+    public void settle(EconomySettler.Callback callback) {
+
+        final Trader traderA = transaction.getTraderA();
+        final Trader traderB = transaction.getTraderB();
+
+        final double net = traderB.getOffers().getTotal(MoneyOffer.TYPE_NAME) - traderA.getOffers().getTotal(MoneyOffer.TYPE_NAME);
+
+        if (Math.abs(net) < EPSILON) {
+            callback.onComplete(true);
+            return;
+        }
+
+        final Trader payer = (net > 0) ? traderB : traderA;
+        final Trader payee = payer.getOtherTrader();
+
+        transaction.getManager().getSettler().transfer(payer.getName(), payee.getName(), Math.abs(net), callback);
+
+    }
+
+}
@@ -114,6 +114,6 @@ public class Trader implements ActionProvoker {
 
 
     public enum State {
-        IN_GUI, ROAMING;
+        IN_GUI, ROAMING, DISCONNECTED;
     }
 }
@@ -12,11 +12,16 @@ public class Transaction {
 
     private final TransactionManager manager;
 
+    private final long id;
+    private long startDate = -1;
+
     private final Layout layout;
 
     private final Trader traderA;
     private final Trader traderB;
 
+    private final MoneyLedger moneyLedger;
+
     private Transaction.Stage stage = Transaction.Stage.PRE;
     private TransactionActionProvoker transactionProvoker = new TransactionActionProvoker(this);
 
@@ -27,6 +32,7 @@ public class Transaction {
     public Transaction(TransactionManager manager, Layout layout, UUID uuidA, UUID uuidB) {
 
         this.manager = manager;
+        this.id = manager.nextTransactionId();
         this.layout = layout;
 
         traderA = new Trader(this, uuidA, layout.getOfferSize());
@@ -34,6 +40,8 @@ public class Transaction {
 
         traderA.setOther(traderB);
         traderB.setOther(traderA);
+
+        moneyLedger = new MoneyLedger(this);
     }
 
     public TransactionManager getManager() {
@@ -44,6 +52,18 @@ public class Transaction {
         return manager.getPlugin();
     }
 
+    public long getId() {
+        return id;
+    }
+
+    public long getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(long startDate) {
+        this.startDate = startDate;
+    }
+
     public Trader getTraderA() {
         return traderA;
     }
@@ -60,6 +80,18 @@ public class Transaction {
         throw new IllegalArgumentException("Player " + playerName + " is not participating in this trade or went offline.");
     }
 
+    public Trader getTrader(UUID id) {
+        if (traderA.getID().equals(id))
+            return traderA;
+        if (traderB.getID().equals(id))
+            return traderB;
+        throw new IllegalArgumentException("Player " + id + " is not participating in this trade.");
+    }
+
+    public MoneyLedger getMoneyLedger() {
+        return moneyLedger;
+    }
+
     public Layout getLayout() {
         return layout;
     }
@@ -89,11 +121,11 @@ public class Transaction {
     }
 
     public boolean useLogging() {
-        return false;
+        return manager.getJournal() != null && !manager.getJournal().hasFailed();
     }
 
     public void logAction(Action action) {
-
+        manager.getJournal().log(action);
     }
 
     public TransactionActionProvoker getTransactionProvoker() {
@@ -9,6 +9,7 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
 public class TransactionListener implements Listener {
@@ -43,14 +44,24 @@ public class TransactionListener implements Listener {
     @EventHandler
     public void onDisconnect(PlayerQuitEvent event) {
 
-        final Transaction transaction = transactionManager.getTransaction(event.getPlayer().getName());
+        final Transaction transaction = transactionManager.getTransaction(event.getPlayer());
 
         if (transaction == null) {
             return;
         }
 
-        new RefuseAction(transaction.getTrader(event.getPlayer().getName()), RefuseAction.Reason.DISCONNECT);
+        final Trader trader = transaction.getTrader(event.getPlayer().getUniqueId());
 
+        // Offers granted to a disconnecting trader are given right away, the inventory is saved after this event
+        trader.setState(Trader.State.DISCONNECTED);
+
+        new RefuseAction(trader, RefuseAction.Reason.DISCONNECT).execute();
+
+    }
+
+    @EventHandler
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        transactionManager.getTransactions().updateWorld(event.getPlayer());
     }
 
 }
@@ -2,14 +2,19 @@ package me.josvth.trade.transaction;
 
 import com.conventnunnery.libraries.config.ConventYamlConfiguration;
 import me.josvth.trade.Trade;
+import me.josvth.trade.tasks.HolderUpdateTask;
 import me.josvth.trade.transaction.action.EndAction;
+import me.josvth.trade.transaction.history.TradeHistory;
+import me.josvth.trade.transaction.journal.ActionJournal;
+import me.josvth.trade.transaction.journal.JournalListener;
 import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 
-import java.util.HashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.UUID;
 
 public class TransactionManager {
@@ -18,21 +23,62 @@ public class TransactionManager {
 
     private final TransactionListener listener;
 
+    private final HolderUpdateTask updateTask;
+
     private TransactionOptions options = new TransactionOptions();
 
-    private Map<UUID, Transaction> transactions = new HashMap<UUID, Transaction>();
+    private final TransactionRegistry transactions = new TransactionRegistry();
+
+    private long nextTransactionId = 1;
+
+    private ActionJournal journal = null;
+
+    private TradeHistory history = null;
+
+    private final EconomySettler settler;
 
     public TransactionManager(Trade plugin) {
         this.plugin = plugin;
         this.listener = new TransactionListener(this);
+        this.updateTask = new HolderUpdateTask(plugin);
+        this.settler = new EconomySettler(plugin);
     }
 
     public void initialize() {
+
         Bukkit.getServer().getPluginManager().registerEvents(listener, plugin);
+
+        if (journal != null) {
+            Bukkit.getServer().getPluginManager().registerEvents(new JournalListener(journal), plugin);
+
+            // Players that are already online after a reload
+            for (Player player : Bukkit.getServer().getOnlinePlayers()) {
+                journal.deliver(player);
+            }
+        }
+
     }
 
     public void load(ConfigurationSection section) {
+
         options.load(section);
+
+        settler.start(options.getAsyncEconomy());
+
+        if (options.getUseJournal()) {
+            journal = new ActionJournal(plugin, new File(plugin.getDataFolder(), "journal.dat"));
+            if (!journal.open()) {
+                journal = null;
+            }
+        }
+
+        if (options.getUseHistory()) {
+            history = new TradeHistory(plugin, new File(plugin.getDataFolder(), "history.db"));
+            if (!history.open()) {
+                history = null;
+            }
+        }
+
     }
 
     public void store(ConfigurationSection section) {
@@ -40,10 +86,23 @@ public class TransactionManager {
     }
 
     public void unload() {
-        for (Transaction transaction : new LinkedHashSet<Transaction>(transactions.values())) {
-            new EndAction(transaction, EndAction.Reason.RELOAD).execute();
-        }
+        endTransactions(transactions.getAll(), EndAction.Reason.RELOAD);
         transactions.clear();
+        updateTask.clear();
+
+        // Stopped after ending all transactions so pending settlements are finished
+        settler.stop();
+
+        // Closed after ending all transactions so their end is journaled
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+
+        if (history != null) {
+            history.close();
+            history = null;
+        }
     }
 
     public Trade getPlugin() {
@@ -54,14 +113,22 @@ public class TransactionManager {
         return options;
     }
 
+    public EconomySettler getSettler() {
+        return settler;
+    }
+
+    public HolderUpdateTask getUpdateTask() {
+        return updateTask;
+    }
+
     public Transaction createTransaction(Player playerA, Player playerB) {
 
-        Transaction transaction = removeTransaction(playerA);
+        Transaction transaction = getTransaction(playerA);
         if (transaction != null) {
             new EndAction(transaction, EndAction.Reason.GENERIC).execute();
         }
 
-        transaction = removeTransaction(playerB);
+        transaction = getTransaction(playerB);
         if (transaction != null) {
             new EndAction(transaction, EndAction.Reason.GENERIC).execute();
         }
@@ -72,26 +139,70 @@ public class TransactionManager {
 
     }
 
+    long nextTransactionId() {
+        return nextTransactionId++;
+    }
+
     public boolean isInTransaction(Player player) {
-        return transactions.containsKey(player.getUniqueId());
+        return transactions.contains(player.getUniqueId());
+    }
+
+    public Transaction getTransaction(Player player) {
+        return transactions.get(player.getUniqueId());
     }
 
-    public Transaction getTransaction(String player) {
+    public Transaction getTransaction(UUID player) {
         return transactions.get(player);
     }
 
+    public Transaction getTransaction(long id) {
+        return transactions.get(id);
+    }
+
+    public ActionJournal getJournal() {
+        return journal;
+    }
+
+    public TradeHistory getHistory() {
+        return history;
+    }
+
+    public TransactionRegistry getTransactions() {
+        return transactions;
+    }
+
     public void addTransaction(Transaction transaction) {
-        transactions.put(transaction.getTraderA().getID(), transaction);
-        transactions.put(transaction.getTraderB().getID(), transaction);
+        transaction.setStartDate(System.currentTimeMillis());
+        transactions.add(transaction);
     }
 
     public void removeTransaction(Transaction transaction) {
-        transactions.remove(transaction.getTraderA().getID());
-        transactions.remove(transaction.getTraderB().getID());
+        transactions.remove(transaction);
+    }
+
+    /**
+     * Ends all given transactions that are still running.
+     *
+     * @return the amount of ended transactions
+     */
+    public int endTransactions(Collection<Transaction> toEnd, EndAction.Reason reason) {
+
+        int ended = 0;
+
+        // Ending a transaction removes it from the registry
+        for (Transaction transaction : new ArrayList<Transaction>(toEnd)) {
+            if (transaction.isStarted() && !transaction.hasEnded()) {
+                new EndAction(transaction, reason).execute();
+                ended++;
+            }
+        }
+
+        return ended;
+
     }
 
-    private Transaction removeTransaction(Player player) {
-        return transactions.remove(player.getUniqueId());
+    public int endTransactionsInWorld(World world, EndAction.Reason reason) {
+        return endTransactions(transactions.getInWorld(world), reason);
     }
 
 
@@ -8,17 +8,32 @@ public class TransactionOptions {
     private final static String ALLOW_DRAGGING_KEY = "allow-dragging";
     private final static String USE_ECONOMY_KEY = "use-economy";
     private final static String DEFAULT_LAYOUT_KEY = "default-layout";
+    private final static String ASYNC_ECONOMY_KEY = "async-economy";
+    private final static String USE_JOURNAL_KEY = "use-journal";
+    private final static String USE_HISTORY_KEY = "use-history";
+    private final static String CLICK_BURST_KEY = "click-rate-limit.burst";
+    private final static String CLICKS_PER_SECOND_KEY = "click-rate-limit.per-second";
 
     private boolean allowInventoryClosing = false;
     private boolean allowDragging = true;
     private boolean useEconomy = true;
     private String defaultLayoutName = "default";
+    private boolean asyncEconomy = false;
+    private boolean useJournal = true;
+    private boolean useHistory = true;
+    private int clickBurst = 20;
+    private double clicksPerSecond = 10;
 
     public void load(ConfigurationSection section) {
         setAllowInventoryClosing(section.getBoolean(ALLOW_INVENTORY_CLOSING_KEY, false));
         setAllowDragging(section.getBoolean(ALLOW_DRAGGING_KEY, true));
         setUseEconomy(section.getBoolean(USE_ECONOMY_KEY, false));
         setDefaultLayoutName(section.getString(DEFAULT_LAYOUT_KEY, "default"));
+        setAsyncEconomy(section.getBoolean(ASYNC_ECONOMY_KEY, false));
+        setUseJournal(section.getBoolean(USE_JOURNAL_KEY, true));
+        setUseHistory(section.getBoolean(USE_HISTORY_KEY, true));
+        setClickBurst(section.getInt(CLICK_BURST_KEY, 20));
+        setClicksPerSecond(section.getDouble(CLICKS_PER_SECOND_KEY, 10));
     }
 
     public void store(ConfigurationSection section) {
@@ -26,6 +41,11 @@ public class TransactionOptions {
         section.set(ALLOW_DRAGGING_KEY, getAllowDragging());
         section.set(USE_ECONOMY_KEY, getUseEconomy());
         section.set(DEFAULT_LAYOUT_KEY, getDefaultLayoutName());
+        section.set(ASYNC_ECONOMY_KEY, getAsyncEconomy());
+        section.set(USE_JOURNAL_KEY, getUseJournal());
+        section.set(USE_HISTORY_KEY, getUseHistory());
+        section.set(CLICK_BURST_KEY, getClickBurst());
+        section.set(CLICKS_PER_SECOND_KEY, getClicksPerSecond());
     }
 
     public boolean getAllowInventoryClosing() {
@@ -60,4 +80,44 @@ public class TransactionOptions {
         return defaultLayoutName;
     }
 
+    public boolean getAsyncEconomy() {
+        return asyncEconomy;
+    }
+
+    public void setAsyncEconomy(boolean asyncEconomy) {
+        this.asyncEconomy = asyncEconomy;
+    }
+
+    public boolean getUseJournal() {
+        return useJournal;
+    }
+
+    public void setUseJournal(boolean useJournal) {
+        this.useJournal = useJournal;
+    }
+
+    public boolean getUseHistory() {
+        return useHistory;
+    }
+
+    public void setUseHistory(boolean useHistory) {
+        this.useHistory = useHistory;
+    }
+
+    public int getClickBurst() {
+        return clickBurst;
+    }
+
+    public void setClickBurst(int clickBurst) {
+        this.clickBurst = clickBurst;
+    }
+
+    public double getClicksPerSecond() {
+        return clicksPerSecond;
+    }
+
+    public void setClicksPerSecond(double clicksPerSecond) {
+        this.clicksPerSecond = clicksPerSecond;
+    }
+
 }
@@ -0,0 +1,151 @@
+package me.josvth.trade.transaction;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Running transactions indexed by id, participant and world. Iteration over all transactions is in order of start.
+ */
+public class TransactionRegistry {
+
+    // Insertion ordered so iteration follows the start order
+    private final Map<Long, Transaction> byId = new LinkedHashMap<Long, Transaction>();
+
+    private final Map<UUID, Transaction> byParticipant = new HashMap<UUID, Transaction>();
+
+    // World of every participant as registered, used to update the world index
+    private final Map<UUID, UUID> participantWorlds = new HashMap<UUID, UUID>();
+    private final Map<UUID, Set<Transaction>> byWorld = new HashMap<UUID, Set<Transaction>>();
+
+    public void add(Transaction transaction) {
+        byId.put(transaction.getId(), transaction);
+        addParticipant(transaction, transaction.getTraderA());
+        addParticipant(transaction, transaction.getTraderB());
+    }
+
+    public boolean remove(Transaction transaction) {
+
+        if (byId.remove(transaction.getId()) == null) {
+            return false;
+        }
+
+        removeParticipant(transaction, transaction.getTraderA().getID());
+        removeParticipant(transaction, transaction.getTraderB().getID());
+
+        return true;
+
+    }
+
+    public Transaction get(long id) {
+        return byId.get(id);
+    }
+
+    public Transaction get(UUID participant) {
+        return byParticipant.get(participant);
+    }
+
+    public boolean contains(UUID participant) {
+        return byParticipant.containsKey(participant);
+    }
+
+    /**
+     * Returns all transactions in order of start. The returned collection can't be modified.
+     */
+    public Collection<Transaction> getAll() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    /**
+     * Returns the transactions with at least one participant in the world.
+     */
+    public Collection<Transaction> getInWorld(World world) {
+        final Set<Transaction> transactions = byWorld.get(world.getUID());
+        return (transactions == null) ? Collections.<Transaction>emptySet() : Collections.unmodifiableSet(transactions);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public void clear() {
+        byId.clear();
+        byParticipant.clear();
+        participantWorlds.clear();
+        byWorld.clear();
+    }
+
+    /**
+     * Moves the participant to its current world in the world index.
+     */
+    public void updateWorld(Player player) {
+
+        final Transaction transaction = byParticipant.get(player.getUniqueId());
+
+        if (transaction == null) {
+            return;
+        }
+
+        removeWorld(transaction, player.getUniqueId());
+        addWorld(transaction, player.getUniqueId(), player.getWorld().getUID());
+
+    }
+
+    private void addParticipant(Transaction transaction, Trader trader) {
+
+        byParticipant.put(trader.getID(), transaction);
+
+        final Player player = trader.getPlayer();
+
+        if (player != null) {
+            addWorld(transaction, trader.getID(), player.getWorld().getUID());
+        }
+
+    }
+
+    private void removeParticipant(Transaction transaction, UUID participant) {
+        if (byParticipant.get(participant) == transaction) {
+            byParticipant.remove(participant);
+            removeWorld(transaction, participant);
+        }
+    }
+
+    private void addWorld(Transaction transaction, UUID participant, UUID world) {
+
+        participantWorlds.put(participant, world);
+
+        Set<Transaction> transactions = byWorld.get(world);
+        if (transactions == null) {
+            transactions = new LinkedHashSet<Transaction>();
+            byWorld.put(world, transactions);
+        }
+        transactions.add(transaction);
+
+    }
+
+    private void removeWorld(Transaction transaction, UUID participant) {
+
+        final UUID world = participantWorlds.remove(participant);
+
+        if (world == null) {
+            return;
+        }
+
+        // The other participant can still be in the same world
+        final Trader other = (transaction.getTraderA().getID().equals(participant)) ? transaction.getTraderB() : transaction.getTraderA();
+        if (world.equals(participantWorlds.get(other.getID())) && byParticipant.get(other.getID()) == transaction) {
+            return;
+        }
+
+        final Set<Transaction> transactions = byWorld.get(world);
+        if (transactions != null) {
+            transactions.remove(transaction);
+            if (transactions.isEmpty()) {
+                byWorld.remove(world);
+            }
+        }
+
+    }
+
+}
@@ -1,9 +1,13 @@
 package me.josvth.trade.transaction.action;
 
+import me.josvth.trade.transaction.EconomySettler;
 import me.josvth.trade.transaction.Trader;
 import me.josvth.trade.transaction.Transaction;
 import me.josvth.trade.transaction.action.trader.offer.SetOfferAction;
+import me.josvth.trade.transaction.history.HistoryEntry;
 import me.josvth.trade.transaction.inventory.offer.Offer;
+import me.josvth.trade.transaction.inventory.offer.OfferGrant;
+import org.bukkit.entity.Player;
 
 public class EndAction extends Action {
 
@@ -42,21 +46,72 @@ public class EndAction extends Action {
 
         final boolean nextTick = reason != Reason.RELOAD;
 
-        handleOffers(getTransaction().getTraderA(), nextTick);
-        handleOffers(getTransaction().getTraderB(), nextTick);
+        // The items of both traders are granted in a single pass
+        final OfferGrant grant = new OfferGrant(nextTick);
+
+        // The offers in the inventories go back to their owners no matter how the trade ended
+        returnInventoryOffers(getTransaction().getTraderA(), grant);
+        returnInventoryOffers(getTransaction().getTraderB(), grant);
 
         getTransaction().remove();
 
+        if (reason == Reason.ACCEPT) {
+            // The offers are only exchanged once the money is transferred
+            getTransaction().getMoneyLedger().settle(new EconomySettler.Callback() {
+                @Override
+                public void onComplete(boolean success) {
+                    if (!success) {
+                        sendSettleFailed(getTransaction().getTraderA());
+                        sendSettleFailed(getTransaction().getTraderB());
+                    }
+                    grantTradeOffers(success, grant);
+                }
+            });
+        } else {
+            grantTradeOffers(false, grant);
+        }
+
+    }
+
+    private void grantTradeOffers(boolean exchange, OfferGrant grant) {
+
+        final Trader traderA = getTransaction().getTraderA();
+        final Trader traderB = getTransaction().getTraderB();
+
+        // The history is taken before the offers are granted and records where they actually went
+        if (getTransaction().getManager().getHistory() != null) {
+            final Reason recorded = (reason == Reason.ACCEPT && !exchange) ? Reason.SETTLE_FAILED : reason;
+            getTransaction().getManager().getHistory().record(HistoryEntry.of(getTransaction(), recorded, exchange));
+        }
+
+        traderA.getOffers().grant(exchange ? traderB : traderA, grant);
+        traderB.getOffers().grant(exchange ? traderA : traderB, grant);
+
+        grant.execute();
+
+        // Until the end is logged the journal still returns the offers to their owners after a crash
+        if (getTransaction().useLogging()) {
+            getTransaction().logAction(this);
+        }
+
     }
 
-    private void handleOffers(Trader trader, boolean nextTick) {
+    private void sendSettleFailed(Trader trader) {
+        // The trader could have gone offline while the money was settled
+        final Player player = trader.getPlayer();
+        if (player != null) {
+            trader.getFormattedMessage("money.settle-failed").send(player);
+        }
+    }
+
+    private void returnInventoryOffers(Trader trader, OfferGrant grant) {
 
         final SetOfferAction offerAction = new SetOfferAction(trader, trader.getHolder().getInventoryList());
 
         for (int i = 0; i < trader.getHolder().getInventoryList().getContents().length; i++) {
             final Offer offer = trader.getHolder().getInventoryList().getContents()[i];
             if (offer != null && !offer.canStayInInventory()) {
-                offer.grant(getTransaction().getTraderA(), nextTick);
+                offer.grant(trader, grant);
                 offerAction.setOffer(i, null);
             }
         }
@@ -65,12 +120,6 @@ public class EndAction extends Action {
             offerAction.execute();
         }
 
-        if (reason == Reason.ACCEPT) {
-            trader.getOffers().grant(trader.getOtherTrader(), nextTick);
-        } else {
-            trader.getOffers().grant(trader, nextTick);
-        }
-
     }
 
     public enum Reason {
@@ -78,6 +127,8 @@ public class EndAction extends Action {
         GENERIC(null),
         ACCEPT(null),
         REFUSE(null),
+        OPERATOR("cancelled.op"),
+        SETTLE_FAILED(null),
         RELOAD("cancelled.reload");
 
         public final String messagePath;
@@ -16,11 +16,9 @@ public class ChangeExperienceAction extends ChangeOfferAction {
     @Override
     public void execute() {
 
-        final ExperienceManager expManager = new ExperienceManager(getPlayer());
-
         if (isAdd()) {
 
-            if (!expManager.hasExp(getInitialAmount())) {
+            if (!ExperienceManager.hasExp(getPlayer(), getInitialAmount())) {
                 getTrader().getFormattedMessage("experience.insufficient").send(getPlayer(), "%experience%", String.valueOf(getInitialAmount()));
                 return;
             }
@@ -42,7 +40,7 @@ public class ChangeExperienceAction extends ChangeOfferAction {
 
                 // Only send the other trader a message if something actually was changed
                 getOtherTrader().getFormattedMessage("experience.added.other").send(getOtherPlayer(), "%player%", getTrader().getName(), "%experience%", String.valueOf(added));
-                expManager.changeExp(-1 * added);
+                ExperienceManager.changeExp(getPlayer(), -1 * added);
 
                 // Update experience slots
                 //ExperienceSlot.updateExperienceSlots(getTrader().getHolder(), true, getCurrentAmount());
@@ -59,7 +57,7 @@ public class ChangeExperienceAction extends ChangeOfferAction {
 
             if (removed > 0) {
 
-                expManager.changeExp(removed);
+                ExperienceManager.changeExp(getPlayer(), removed);
 
                 // Only send the other trader a message if something actually was changed
                 getOtherTrader().getFormattedMessage("experience.removed.other").send(getOtherPlayer(), "%player%", getTrader().getName(), "%experience%", String.valueOf(removed));
@@ -1,11 +1,9 @@
 package me.josvth.trade.transaction.action.trader.offer;
 
+import me.josvth.trade.transaction.MoneyLedger;
 import me.josvth.trade.transaction.Trader;
 import me.josvth.trade.transaction.inventory.offer.MoneyOffer;
 import me.josvth.trade.transaction.inventory.offer.OfferList;
-import me.josvth.trade.transaction.inventory.slot.MoneySlot;
-import net.milkbowl.vault.economy.Economy;
-import net.milkbowl.vault.economy.EconomyResponse;
 
 public class ChangeMoneyAction extends ChangeOfferAction {
 
@@ -15,19 +13,26 @@ public class ChangeMoneyAction extends ChangeOfferAction {
         setAddition(amount > 0);
     }
 
-    private Economy getEconomy() {
-        return getTrader().getTransaction().getPlugin().getEconomy();
+    private MoneyLedger getLedger() {
+        return getTrader().getTransaction().getMoneyLedger();
     }
 
     @Override
     public void execute() {
 
-        // First we check if the player has the money
+        // First we check if the player has the money, the money is only transferred when the trade ends
         if (isAdd()) {
 
-            if (!getEconomy().has(getTrader().getName(), getInitialAmount())) {
-                getTrader().getFormattedMessage("money.insufficient").send(getPlayer(), "%money%", getEconomy().format(getInitialAmount()));
-                return;
+            if (!getLedger().has(getTrader(), getInitialAmount())) {
+
+                // The trader may have received money since the balance was read
+                getLedger().refresh(getTrader());
+
+                if (!getLedger().has(getTrader(), getInitialAmount())) {
+                    getTrader().getFormattedMessage("money.insufficient").send(getPlayer(), "%money%", getLedger().format(getInitialAmount()));
+                    return;
+                }
+
             }
 
         }
@@ -35,41 +40,29 @@ public class ChangeMoneyAction extends ChangeOfferAction {
         // Execute super
         super.execute();
 
-        if (isAdd()) {
-
-            final EconomyResponse response = getEconomy().withdrawPlayer(getTrader().getName(), getChangedAmount());
+        final String balance = getLedger().format(getLedger().getAvailable(getTrader()));
 
-            // TODO Check if withdraw success
+        if (isAdd()) {
 
             // Send messages
-            getTrader().getFormattedMessage("money.added.self").send(getPlayer(), "%money%", getEconomy().format(getChangedAmount()), "%balance%", getEconomy().format(response.balance));
+            getTrader().getFormattedMessage("money.added.self").send(getPlayer(), "%money%", getLedger().format(getChangedAmount()), "%balance%", balance);
 
             if (getChangedAmount() > 0) {
 
                 // Only send the other trader a message if something actually was changed
-                getOtherTrader().getFormattedMessage("money.added.other").send(getOtherPlayer(), "%player%", getTrader().getName(), "%money%", getEconomy().format(getChangedAmount()));
-
-                // Update money slots
-                MoneySlot.updateMoneySlots(getTrader().getHolder(), true, getCurrentAmount());
+                getOtherTrader().getFormattedMessage("money.added.other").send(getOtherPlayer(), "%player%", getTrader().getName(), "%money%", getLedger().format(getChangedAmount()));
 
             }
 
         } else {
 
-            final EconomyResponse response = getEconomy().depositPlayer(getTrader().getName(), getChangedAmount());
-
-            // TODO Check if deposit success
-
             // Send messages
-            getTrader().getFormattedMessage("money.removed.self").send(getPlayer(), "%money%", getEconomy().format(getChangedAmount()), "%balance%", getEconomy().format(response.balance));
+            getTrader().getFormattedMessage("money.removed.self").send(getPlayer(), "%money%", getLedger().format(getChangedAmount()), "%balance%", balance);
 
             if (getChangedAmount() > 0) {
 
                 // Only send the other trader a message if something actually was changed
-                getOtherTrader().getFormattedMessage("money.removed.other").send(getOtherPlayer(), "%player%", getTrader().getName(), "%money%", getEconomy().format(getChangedAmount()));
-
-                // Update money slots
-                MoneySlot.updateMoneySlots(getTrader().getHolder(), true, getCurrentAmount());
+                getOtherTrader().getFormattedMessage("money.removed.other").send(getOtherPlayer(), "%player%", getTrader().getName(), "%money%", getLedger().format(getChangedAmount()));
 
             }
 
@@ -24,6 +24,10 @@ public abstract class OfferAction extends TraderAction {
         this.list = list;
     }
 
+    public OfferList getList() {
+        return list;
+    }
+
     public Map<Integer, Offer> getChanges() {
         return changes;
     }
@@ -34,36 +38,18 @@ public abstract class OfferAction extends TraderAction {
 
     public void updateOffers() {
 
-        // TODO THIS IS HORRIBLE! COME UP WITH A FIX
-        double newExperience = ExperienceSlot.getExperience(list);
-        double newMoney = MoneySlot.getMoney(list);
-
         for (Map.Entry<Integer, ? extends Offer> entry : getChanges().entrySet()) {
-
-            if (list.get(entry.getKey()) instanceof ExperienceOffer) {
-                newExperience -= ((ExperienceOffer) list.get(entry.getKey())).getAmount();
-            }
-
-            if (list.get(entry.getKey()) instanceof MoneyOffer) {
-                newMoney -= ((MoneyOffer) list.get(entry.getKey())).getAmount();
-            }
-
-            if (entry.getValue() instanceof ExperienceOffer) {
-                newExperience += ((ExperienceOffer) entry.getValue()).getAmount();
-            }
-
-            if (entry.getValue() instanceof MoneyOffer) {
-                newMoney += ((MoneyOffer) entry.getValue()).getAmount();
-            }
-
             list.set(entry.getKey(), entry.getValue());
+        }
 
+        if (getTransaction().useLogging()) {
+            getTransaction().logAction(this);
         }
 
         // TODO UGLY!!!
         if (list.getType() == OfferList.Type.TRADE) {
-            ExperienceSlot.updateExperienceSlots(list.getHolder(), true, newExperience);
-            MoneySlot.updateMoneySlots(list.getHolder(), true, newMoney);
+            ExperienceSlot.updateExperienceSlots(list.getHolder(), true, list.getTotal(ExperienceOffer.TYPE_NAME));
+            MoneySlot.updateMoneySlots(list.getHolder(), true, list.getTotal(MoneyOffer.TYPE_NAME));
         }
 
     }
@@ -20,6 +20,12 @@ public class AcceptAction extends TraderAction {
 
         if (!getTrader().hasAccepted()) {
 
+            // Offered money stays in the account until the trade ends, make sure it wasn't spent in the meantime
+            if (!getTransaction().getMoneyLedger().isCovered(getTrader())) {
+                getTrader().getFormattedMessage("money.not-covered").send(getPlayer());
+                return;
+            }
+
             getTrader().setAccepted(true);
 
             getTrader().getFormattedMessage(reason.messagePath).send(getTrader().getPlayer());
@@ -38,7 +44,14 @@ public class AcceptAction extends TraderAction {
             }
 
             if (getOtherTrader().hasAccepted()) {
+
+                if (!getTransaction().getMoneyLedger().isCovered(getOtherTrader())) {
+                    new DenyAction(getOtherTrader(), DenyAction.Reason.MONEY_NOT_COVERED).execute();
+                    return;
+                }
+
                 new EndAction(getTransaction(), EndAction.Reason.ACCEPT).execute();
+
             }
 
         }
@@ -46,6 +46,7 @@ public class DenyAction extends TraderAction {
         BUTTON("deny.generic.message", "deny.generic.mirror"),
         OWN_OFFER_CHANGED("deny.own-offer-changed.message", "deny.own-offer-changed.mirror"),
         OTHERS_OFFER_CHANGED("deny.others-offer-changed.message", "deny.others-offer-changed.mirror"),
+        MONEY_NOT_COVERED("deny.money-not-covered.message", "deny.money-not-covered.mirror"),
         COMMAND("deny.generic.message", "deny.generic.mirror");
 
         public final String messagePath;
@@ -0,0 +1,148 @@
+package me.josvth.trade.transaction.history;
+
+import me.josvth.trade.transaction.Trader;
+import me.josvth.trade.transaction.Transaction;
+import me.josvth.trade.transaction.action.EndAction;
+import me.josvth.trade.transaction.inventory.offer.ItemOffer;
+import me.josvth.trade.transaction.inventory.offer.Offer;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A finished trade as stored in the history. Created on the main thread, everything expensive is left to the writer.
+ */
+public class HistoryEntry {
+
+    private final long started;
+    private final long ended;
+    private final String reason;
+
+    private final UUID traderA;
+    private final String nameA;
+    private final UUID traderB;
+    private final String nameB;
+
+    private final List<Grant> grants;
+
+    public HistoryEntry(long started, long ended, String reason, UUID traderA, String nameA, UUID traderB, String nameB, List<Grant> grants) {
+        this.started = started;
+        this.ended = ended;
+        this.reason = reason;
+        this.traderA = traderA;
+        this.nameA = nameA;
+        this.traderB = traderB;
+        this.nameB = nameB;
+        this.grants = grants;
+    }
+
+    /**
+     * Takes the offers of both traders before they are granted.
+     *
+     * @param exchange true if the offers go to the other trader, false if they are returned to their owners
+     */
+    public static HistoryEntry of(Transaction transaction, EndAction.Reason reason, boolean exchange) {
+
+        final List<Grant> grants = new ArrayList<Grant>();
+
+        addGrants(grants, transaction.getTraderA(), exchange ? transaction.getTraderB() : transaction.getTraderA());
+        addGrants(grants, transaction.getTraderB(), exchange ? transaction.getTraderA() : transaction.getTraderB());
+
+        return new HistoryEntry(transaction.getStartDate(), System.currentTimeMillis(), reason.name(),
+                transaction.getTraderA().getID(), getName(transaction.getTraderA()),
+                transaction.getTraderB().getID(), getName(transaction.getTraderB()),
+                grants);
+
+    }
+
+    private static void addGrants(List<Grant> grants, Trader from, Trader to) {
+        for (Offer offer : from.getOffers().getContents()) {
+            if (offer != null) {
+                grants.add(new Grant(from.getID(), to.getID(), offer.getType(), offer.getAmount(), (offer instanceof ItemOffer) ? ((ItemOffer) offer).createItemStack() : null));
+            }
+        }
+    }
+
+    private static String getName(Trader trader) {
+        final Player player = trader.getPlayer();
+        return (player == null) ? null : player.getName();
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public long getEnded() {
+        return ended;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public UUID getTraderA() {
+        return traderA;
+    }
+
+    public String getNameA() {
+        return nameA;
+    }
+
+    public UUID getTraderB() {
+        return traderB;
+    }
+
+    public String getNameB() {
+        return nameB;
+    }
+
+    public List<Grant> getGrants() {
+        return Collections.unmodifiableList(grants);
+    }
+
+    /**
+     * An offer and the player that received it.
+     */
+    public static class Grant {
+
+        private final UUID from;
+        private final UUID to;
+        private final String type;
+        private final double amount;
+        private final ItemStack item;
+
+        public Grant(UUID from, UUID to, String type, double amount, ItemStack item) {
+            this.from = from;
+            this.to = to;
+            this.type = type;
+            this.amount = amount;
+            this.item = item;
+        }
+
+        public UUID getFrom() {
+            return from;
+        }
+
+        public UUID getTo() {
+            return to;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public ItemStack getItem() {
+            return item;
+        }
+
+    }
+
+}
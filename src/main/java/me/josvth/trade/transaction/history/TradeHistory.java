@@ -0,0 +1,542 @@
+package me.josvth.trade.transaction.history;
+
+import me.josvth.bukkitformatlibrary.message.FormattedMessage;
+import me.josvth.bukkitformatlibrary.message.MessageHolder;
+import me.josvth.trade.Trade;
+import me.josvth.trade.transaction.inventory.offer.ExperienceOffer;
+import me.josvth.trade.transaction.inventory.offer.ItemOffer;
+import me.josvth.trade.transaction.inventory.offer.MoneyOffer;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.sql.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.Date;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Stores finished trades in a SQLite database. All database work happens on a single background thread, finished
+ * trades queued in the mean time are inserted in one database transaction.
+ */
+public class TradeHistory {
+
+    public static final int PAGE_SIZE = 5;
+
+    // Senders paging through the history at the same time, older cursors are dropped
+    private static final int MAX_CURSORS = 64;
+
+    private final Trade plugin;
+    private final File file;
+
+    private final Queue<HistoryEntry> queued = new ConcurrentLinkedQueue<HistoryEntry>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private ExecutorService executor = null;
+
+    // Only used on the executor thread
+    private Connection connection = null;
+    private final Map<String, List<Long>> cursors = new LinkedHashMap<String, List<Long>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<Long>> eldest) {
+            return size() > MAX_CURSORS;
+        }
+    };
+
+    public TradeHistory(Trade plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+    }
+
+    public boolean open() {
+
+        // CraftBukkit ships the SQLite driver
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            plugin.getLogger().warning("SQLite driver not found, trade history is disabled.");
+            return false;
+        }
+
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "Trade history writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    connect();
+                } catch (SQLException e) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to open the trade history.", e);
+                    connection = null;
+                }
+            }
+        });
+
+        return true;
+
+    }
+
+    public void close() {
+
+        if (executor == null) {
+            return;
+        }
+
+        flush();
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (connection != null) {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        plugin.getLogger().log(Level.WARNING, "Failed to close the trade history.", e);
+                    }
+                    connection = null;
+                }
+            }
+        });
+
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out while writing the trade history.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        executor = null;
+
+    }
+
+    public void record(HistoryEntry entry) {
+        queued.add(entry);
+        flush();
+    }
+
+    private void flush() {
+        if (executor != null && flushScheduled.compareAndSet(false, true)) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flushScheduled.set(false);
+                    insertQueued();
+                }
+            });
+        }
+    }
+
+    /**
+     * Looks up a page of the trades of a player and sends it to the sender.
+     *
+     * @param player the id of the player or null to look up by name
+     * @param name   the name of the player
+     * @param page   the page starting at 1
+     */
+    public void show(final CommandSender sender, final UUID player, final String name, final int page) {
+
+        if (executor == null) {
+            return;
+        }
+
+        final MessageHolder messages = plugin.getMessageManager().getMessageHolder();
+
+        // Offers are described on the executor thread so their formats are taken here
+        final OfferFormats formats = new OfferFormats(messages);
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                List<Line> lines;
+
+                try {
+                    lines = query(sender.getName(), player, name, page, formats);
+                } catch (SQLException e) {
+                    plugin.getLogger().log(Level.WARNING, "Failed to query the trade history.", e);
+                    lines = Collections.singletonList(new Line("commands.history.failed"));
+                }
+
+                final List<Line> result = lines;
+
+                Bukkit.getScheduler().runTask(plugin, new Runnable() {
+                    @Override
+                    public void run() {
+                        for (Line line : result) {
+                            messages.getMessage(line.key).send(sender, line.arguments);
+                        }
+                    }
+                });
+
+            }
+        });
+
+    }
+
+    // Executor thread
+    private void connect() throws SQLException {
+
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+
+        final Statement statement = connection.createStatement();
+
+        try {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS trades (id INTEGER PRIMARY KEY AUTOINCREMENT, started INTEGER NOT NULL, ended INTEGER NOT NULL, reason TEXT NOT NULL, trader_a TEXT NOT NULL, name_a TEXT, trader_b TEXT NOT NULL, name_b TEXT)");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS trade_participants (player TEXT NOT NULL, name TEXT, trade_id INTEGER NOT NULL, PRIMARY KEY (player, trade_id))");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS trade_participants_name ON trade_participants (name, trade_id)");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS trade_offers (trade_id INTEGER NOT NULL, giver TEXT NOT NULL, receiver TEXT NOT NULL, type TEXT NOT NULL, amount REAL NOT NULL, description TEXT, item TEXT)");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS trade_offers_trade ON trade_offers (trade_id)");
+        } finally {
+            statement.close();
+        }
+
+    }
+
+    private void insertQueued() {
+
+        if (connection == null) {
+            queued.clear();
+            return;
+        }
+
+        final List<HistoryEntry> entries = new ArrayList<HistoryEntry>();
+
+        HistoryEntry entry;
+        while ((entry = queued.poll()) != null) {
+            entries.add(entry);
+        }
+
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+
+            connection.setAutoCommit(false);
+
+            final PreparedStatement trades = connection.prepareStatement("INSERT INTO trades (started, ended, reason, trader_a, name_a, trader_b, name_b) VALUES (?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+            final PreparedStatement participants = connection.prepareStatement("INSERT OR IGNORE INTO trade_participants (player, name, trade_id) VALUES (?, ?, ?)");
+            final PreparedStatement offers = connection.prepareStatement("INSERT INTO trade_offers (trade_id, giver, receiver, type, amount, description, item) VALUES (?, ?, ?, ?, ?, ?, ?)");
+
+            try {
+
+                for (HistoryEntry e : entries) {
+
+                    trades.setLong(1, e.getStarted());
+                    trades.setLong(2, e.getEnded());
+                    trades.setString(3, e.getReason());
+                    trades.setString(4, e.getTraderA().toString());
+                    trades.setString(5, e.getNameA());
+                    trades.setString(6, e.getTraderB().toString());
+                    trades.setString(7, e.getNameB());
+                    trades.executeUpdate();
+
+                    final ResultSet keys = trades.getGeneratedKeys();
+                    final long id;
+                    try {
+                        keys.next();
+                        id = keys.getLong(1);
+                    } finally {
+                        keys.close();
+                    }
+
+                    addParticipant(participants, e.getTraderA(), e.getNameA(), id);
+                    addParticipant(participants, e.getTraderB(), e.getNameB(), id);
+
+                    for (HistoryEntry.Grant grant : e.getGrants()) {
+                        offers.setLong(1, id);
+                        offers.setString(2, grant.getFrom().toString());
+                        offers.setString(3, grant.getTo().toString());
+                        offers.setString(4, grant.getType());
+                        offers.setDouble(5, grant.getAmount());
+                        offers.setString(6, describe(grant));
+                        offers.setString(7, serialize(grant.getItem()));
+                        offers.addBatch();
+                    }
+
+                }
+
+                participants.executeBatch();
+                offers.executeBatch();
+
+                connection.commit();
+
+            } finally {
+                trades.close();
+                participants.close();
+                offers.close();
+            }
+
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to write " + entries.size() + " trade(s) to the history.", e);
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
+        }
+
+    }
+
+    private static void addParticipant(PreparedStatement statement, UUID player, String name, long id) throws SQLException {
+        statement.setString(1, player.toString());
+        statement.setString(2, (name == null) ? null : name.toLowerCase());
+        statement.setLong(3, id);
+        statement.addBatch();
+    }
+
+    private static String describe(HistoryEntry.Grant grant) {
+
+        if (ItemOffer.TYPE_NAME.equals(grant.getType()) && grant.getItem() != null) {
+            final ItemStack item = grant.getItem();
+            final StringBuilder builder = new StringBuilder();
+            builder.append(item.getAmount()).append("x ").append(item.getType().name().toLowerCase());
+            if (item.getDurability() != 0) {
+                builder.append(":").append(item.getDurability());
+            }
+            if (item.hasItemMeta() && item.getItemMeta().hasDisplayName()) {
+                builder.append(" \"").append(item.getItemMeta().getDisplayName()).append("\"");
+            }
+            return builder.toString();
+        }
+
+        // Other offers are described by their type and amount when they are shown
+        return null;
+
+    }
+
+    private static String serialize(ItemStack item) {
+        if (item == null) {
+            return null;
+        }
+        final YamlConfiguration configuration = new YamlConfiguration();
+        configuration.set("item", item);
+        return configuration.saveToString();
+    }
+
+    private List<Line> query(String sender, UUID player, String name, int page, OfferFormats formats) throws SQLException {
+
+        final List<Line> lines = new ArrayList<Line>();
+
+        if (connection == null) {
+            lines.add(new Line("commands.history.unavailable"));
+            return lines;
+        }
+
+        final String key = (player != null) ? player.toString() : name.toLowerCase();
+        final String column = (player != null) ? "player" : "name";
+
+        // Cursors hold the last trade id of every page this sender has seen of this player
+        final String cursorKey = sender + "/" + key;
+        List<Long> pageEnds = cursors.get(cursorKey);
+        if (pageEnds == null || page == 1) {
+            pageEnds = new ArrayList<Long>();
+            cursors.put(cursorKey, pageEnds);
+        }
+
+        // Walk the pages we have not seen yet, only reading the index
+        while (pageEnds.size() < page - 1) {
+
+            final long before = pageEnds.isEmpty() ? Long.MAX_VALUE : pageEnds.get(pageEnds.size() - 1);
+
+            final PreparedStatement statement = connection.prepareStatement("SELECT trade_id FROM trade_participants WHERE " + column + " = ? AND trade_id < ? ORDER BY trade_id DESC LIMIT ?");
+            try {
+                statement.setString(1, key);
+                statement.setLong(2, before);
+                statement.setInt(3, PAGE_SIZE);
+                final ResultSet result = statement.executeQuery();
+                long last = -1;
+                while (result.next()) {
+                    last = result.getLong(1);
+                }
+                result.close();
+                if (last == -1) {
+                    break;
+                }
+                pageEnds.add(last);
+            } finally {
+                statement.close();
+            }
+
+        }
+
+        if (pageEnds.size() < page - 1) {
+            lines.add(new Line("commands.history.no-page", "%page%", String.valueOf(page), "%player%", name));
+            return lines;
+        }
+
+        final long before = (page == 1) ? Long.MAX_VALUE : pageEnds.get(page - 2);
+
+        final Map<Long, Line> trades = new LinkedHashMap<Long, Line>();
+        final Map<Long, String[]> participants = new HashMap<Long, String[]>();
+
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+        // One extra row tells if there is a next page
+        boolean more = false;
+
+        PreparedStatement statement = connection.prepareStatement("SELECT t.id, t.ended, t.reason, t.trader_a, t.name_a, t.trader_b, t.name_b FROM trade_participants p JOIN trades t ON t.id = p.trade_id WHERE p." + column + " = ? AND p.trade_id < ? ORDER BY p.trade_id DESC LIMIT ?");
+        try {
+            statement.setString(1, key);
+            statement.setLong(2, before);
+            statement.setInt(3, PAGE_SIZE + 1);
+            final ResultSet result = statement.executeQuery();
+            while (result.next()) {
+                if (trades.size() == PAGE_SIZE) {
+                    more = true;
+                    break;
+                }
+                final long id = result.getLong(1);
+                trades.put(id, new Line("commands.history.trade",
+                        "%id%", String.valueOf(id),
+                        "%date%", format.format(new Date(result.getLong(2))),
+                        "%player%", result.getString(5),
+                        "%other%", result.getString(7),
+                        "%reason%", result.getString(3).toLowerCase()));
+                participants.put(id, new String[]{result.getString(4), result.getString(5), result.getString(6), result.getString(7)});
+            }
+            result.close();
+        } finally {
+            statement.close();
+        }
+
+        if (trades.isEmpty()) {
+            lines.add(new Line("commands.history.empty", "%player%", name));
+            return lines;
+        }
+
+        if (pageEnds.size() < page) {
+            long last = -1;
+            for (Long id : trades.keySet()) {
+                last = id;
+            }
+            pageEnds.add(last);
+        }
+
+        // Offers of all trades on this page at once
+        final StringBuilder in = new StringBuilder();
+        for (int i = 0; i < trades.size(); i++) {
+            in.append((i == 0) ? "?" : ", ?");
+        }
+
+        final Map<String, StringBuilder> given = new LinkedHashMap<String, StringBuilder>();
+
+        statement = connection.prepareStatement("SELECT trade_id, giver, type, amount, description FROM trade_offers WHERE trade_id IN (" + in + ") ORDER BY trade_id DESC, giver");
+        try {
+            int index = 1;
+            for (Long id : trades.keySet()) {
+                statement.setLong(index++, id);
+            }
+            final ResultSet result = statement.executeQuery();
+            while (result.next()) {
+                final String giverKey = result.getLong(1) + "/" + result.getString(2);
+                StringBuilder builder = given.get(giverKey);
+                if (builder == null) {
+                    builder = new StringBuilder();
+                    given.put(giverKey, builder);
+                } else {
+                    builder.append(", ");
+                }
+                builder.append(formats.describe(result.getString(3), result.getDouble(4), result.getString(5)));
+            }
+            result.close();
+        } finally {
+            statement.close();
+        }
+
+        lines.add(new Line("commands.history.header", "%player%", name, "%page%", String.valueOf(page)));
+
+        for (Map.Entry<Long, Line> trade : trades.entrySet()) {
+            lines.add(trade.getValue());
+            final String[] names = participants.get(trade.getKey());
+            for (int i = 0; i < names.length; i += 2) {
+                final StringBuilder offers = given.get(trade.getKey() + "/" + names[i]);
+                if (offers != null) {
+                    lines.add(new Line("commands.history.offers", "%player%", names[i + 1], "%offers%", offers.toString()));
+                }
+            }
+        }
+
+        if (more) {
+            lines.add(new Line("commands.history.more", "%player%", name, "%page%", String.valueOf(page + 1)));
+        }
+
+        return lines;
+
+    }
+
+    /**
+     * A message key with its arguments, sent on the main thread.
+     */
+    private static class Line {
+
+        private final String key;
+        private final String[] arguments;
+
+        private Line(String key, String... arguments) {
+            this.key = key;
+            this.arguments = arguments;
+        }
+
+    }
+
+    private static class OfferFormats {
+
+        private final FormattedMessage money;
+        private final FormattedMessage experience;
+        private final FormattedMessage other;
+
+        private OfferFormats(MessageHolder messages) {
+            this.money = messages.getMessage("commands.history.money");
+            this.experience = messages.getMessage("commands.history.experience");
+            this.other = messages.getMessage("commands.history.other");
+        }
+
+        private String describe(String type, double amount, String description) {
+
+            if (MoneyOffer.TYPE_NAME.equals(type)) {
+                return money.get("%amount%", String.valueOf(amount));
+            }
+
+            if (ExperienceOffer.TYPE_NAME.equals(type)) {
+                return experience.get("%amount%", String.valueOf((int) amount));
+            }
+
+            if (description != null) {
+                return description;
+            }
+
+            return other.get("%amount%", String.valueOf(amount), "%type%", type);
+
+        }
+
+    }
+
+}
@@ -6,6 +6,7 @@ import me.josvth.trade.transaction.inventory.offer.Offer;
 import me.josvth.trade.transaction.inventory.offer.description.OfferDescription;
 import me.josvth.trade.transaction.inventory.slot.*;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -20,6 +21,9 @@ public class Layout extends MessageHolder {
     private final Map<Class<? extends Offer>, OfferDescription> offerDescriptions = new HashMap<Class<? extends Offer>, OfferDescription>();
     // Slot descriptions
     private final Map<Integer, SlotDescription> slotDescriptions = new HashMap<Integer, SlotDescription>();
+    // Compiled slot factories by slot id
+    private SlotFactory[] slotFactories = new SlotFactory[0];
+    private final BitSet moneySlots = new BitSet();
     private int guiRows;
     private int offerSize = 4;
     private FormattedMessage title = new FormattedMessage("");
@@ -95,6 +99,21 @@ public class Layout extends MessageHolder {
         return slotDescriptions;
     }
 
+    public SlotFactory[] getSlotFactories() {
+        return slotFactories;
+    }
+
+    public void setSlotFactories(SlotFactory[] slotFactories) {
+        this.slotFactories = slotFactories;
+        moneySlots.clear();
+        for (int i = 0; i < slotFactories.length; i++) {
+            final SlotDescription description = slotDescriptions.get(i);
+            if (description != null && MoneySlot.TYPE_NAME.equalsIgnoreCase(description.getType())) {
+                moneySlots.set(i);
+            }
+        }
+    }
+
     // Layout options
     public int getPriority() {
         return priority;
@@ -128,31 +147,13 @@ public class Layout extends MessageHolder {
 
         final Slot[] slots = new Slot[getGuiSize() + LayoutManager.PLAYER_INVENTORY_SIZE];
 
-        for (Map.Entry<Integer, SlotDescription> entry : getSlotDescriptions().entrySet()) {
-
-            // If the type is money we check first if economy is enabled
-            if (MoneySlot.TYPE_NAME.equalsIgnoreCase(entry.getValue().getType()) && !manager.getPlugin().useEconomy()) {
+        final boolean useEconomy = manager.getPlugin().useEconomy();
 
-                slots[entry.getKey()] = null;
-
-            } else {
-
-                final Class<? extends Slot> slotClass = manager.getRegisteredSlots().get(entry.getValue().getType());
-
-                Slot slot = null;
-
-                try {
-                    slot = (Slot) slotClass.getMethod("deserialize", int.class, TransactionHolder.class, SlotDescription.class).invoke(null, entry.getKey(), holder, entry.getValue());
-                } catch (Exception e) {
-                    try {
-                        slot = slotClass.getConstructor(int.class).newInstance(entry.getKey(), holder);
-                    } catch (Exception ignored) {
-
-                    }
-                }
-
-                slots[entry.getKey()] = slot;
+        for (int i = 0; i < slotFactories.length; i++) {
 
+            // If the type is money we check first if economy is enabled
+            if (slotFactories[i] != null && (useEconomy || !moneySlots.get(i))) {
+                slots[i] = slotFactories[i].create(holder);
             }
 
         }
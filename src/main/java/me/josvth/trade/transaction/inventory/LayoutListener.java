@@ -0,0 +1,37 @@
+package me.josvth.trade.transaction.inventory;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Drops cached layout resolutions when the permissions of a player might have changed.
+ */
+public class LayoutListener implements Listener {
+
+    private final LayoutManager layoutManager;
+
+    public LayoutListener(LayoutManager layoutManager) {
+        this.layoutManager = layoutManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        layoutManager.invalidate(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        layoutManager.invalidate(event.getPlayer().getUniqueId());
+    }
+
+    // Permission plugins can grant different permissions per world
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        layoutManager.invalidate(event.getPlayer().getUniqueId());
+    }
+
+}
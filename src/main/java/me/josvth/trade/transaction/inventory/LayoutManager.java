@@ -13,13 +13,22 @@ import me.josvth.trade.transaction.inventory.offer.description.MoneyOfferDescrip
 import me.josvth.trade.transaction.inventory.offer.description.OfferDescription;
 import me.josvth.trade.transaction.inventory.slot.Slot;
 import me.josvth.trade.transaction.inventory.slot.SlotDescription;
+import me.josvth.trade.transaction.inventory.slot.SlotFactory;
 import me.josvth.trade.util.ItemStackUtils;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public class LayoutManager {
 
@@ -40,11 +49,24 @@ public class LayoutManager {
 
     private final Map<String, Layout> layouts = new HashMap<String, Layout>();
 
+    // Layouts sorted on descending priority
+    private final List<Layout> sortedLayouts = new ArrayList<Layout>();
+
+    // Resolved layouts stored under both players of the pair
+    private final Map<UUID, Map<UUID, Layout>> resolvedLayouts = new HashMap<UUID, Map<UUID, Layout>>();
+    private Layout resolvedDefault = null;
+
+    private final LayoutListener listener;
+
     public LayoutManager(Trade plugin, MessageManager messageManager) {
         this.plugin = plugin;
         this.messageManager = messageManager;
+        this.listener = new LayoutListener(this);
     }
 
+    public void initialize() {
+        Bukkit.getServer().getPluginManager().registerEvents(listener, plugin);
+    }
 
     public Trade getPlugin() {
         return plugin;
@@ -77,6 +99,27 @@ public class LayoutManager {
 
         }
 
+        sortLayouts();
+
+    }
+
+    private void sortLayouts() {
+
+        sortedLayouts.clear();
+        sortedLayouts.addAll(layouts.values());
+
+        Collections.sort(sortedLayouts, new Comparator<Layout>() {
+            @Override
+            public int compare(Layout a, Layout b) {
+                if (a.getPriority() != b.getPriority()) {
+                    return (a.getPriority() > b.getPriority()) ? -1 : 1;
+                }
+                return a.getName().compareTo(b.getName());
+            }
+        });
+
+        invalidateAll();
+
     }
 
     private void loadLayout(Layout layout, ConfigurationSection section, Map<String, FormattedMessage> defaultMessages, Map<Class<? extends Offer>, OfferDescription> defaultOfferDescriptions) throws IllegalArgumentException {
@@ -138,6 +181,16 @@ public class LayoutManager {
                 layout.getSlotDescriptions().put(i, new SlotDescription("inventory", null));
             }
 
+            // Compile the gui slots, inventory slots are created by the layout itself
+            final SlotFactory[] slotFactories = new SlotFactory[layout.getGuiSize()];
+            for (int i = 0; i < slotFactories.length; i++) {
+                final SlotDescription description = layout.getSlotDescriptions().get(i);
+                if (description != null) {
+                    slotFactories[i] = compileSlot(i, description);
+                }
+            }
+            layout.setSlotFactories(slotFactories);
+
             // Load offer descriptions
             layout.getOfferDescriptions().putAll(getOfferDescriptionsFromSection(section.getConfigurationSection("offers")));
 
@@ -150,6 +203,48 @@ public class LayoutManager {
         }
     }
 
+    private SlotFactory compileSlot(final int slotID, final SlotDescription description) {
+
+        final Class<? extends Slot> slotClass = registeredSlots.get(description.getType());
+
+        if (slotClass == null) {
+            plugin.getLogger().warning("Unknown slot type: " + description.getType() + " at slot " + slotID);
+            return null;
+        }
+
+        try {
+            return (SlotFactory) slotClass.getMethod("compile", int.class, SlotDescription.class).invoke(null, slotID, description);
+        } catch (NoSuchMethodException ignored) {
+            // Slot types registered by other plugins might only provide a deserialize method
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        final Method deserialize;
+
+        try {
+            deserialize = slotClass.getMethod("deserialize", int.class, TransactionHolder.class, SlotDescription.class);
+        } catch (NoSuchMethodException e) {
+            plugin.getLogger().warning("Slot type " + description.getType() + " has no compile or deserialize method.");
+            return null;
+        }
+
+        return new SlotFactory() {
+            @Override
+            public Slot create(TransactionHolder holder) {
+                try {
+                    return (Slot) deserialize.invoke(null, slotID, holder, description);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                } catch (InvocationTargetException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        };
+
+    }
+
     private Map<String, FormattedMessage> getMessagesFromSection(ConfigurationSection section) {
 
         final Map<String, FormattedMessage> messages = new HashMap<String, FormattedMessage>();
@@ -211,6 +306,8 @@ public class LayoutManager {
 
     public void unload() {
         layouts.clear();
+        sortedLayouts.clear();
+        invalidateAll();
     }
 
     public Map<String, Layout> getLayouts() {
@@ -219,29 +316,92 @@ public class LayoutManager {
 
     public Layout getLayout(Player playerA, Player playerB) {
 
-        Layout found = getDefaultLayout();
+        final Layout defaultLayout = getDefaultLayout();
 
-        for (Layout layout : layouts.values()) {
-            if ((found != null && layout.getPriority() > found.getPriority())) {
+        if (defaultLayout == null) {
+            return null;
+        }
 
-                if (layout.getPermission() != null) {
+        // Resolutions depend on the default layout
+        if (defaultLayout != resolvedDefault) {
+            invalidateAll();
+            resolvedDefault = defaultLayout;
+        }
 
-                    final boolean AHasPermission = playerA.hasPermission(layout.getPermission());
-                    final boolean BHasPermission = playerB.hasPermission(layout.getPermission());
+        Map<UUID, Layout> resolvedA = resolvedLayouts.get(playerA.getUniqueId());
 
-                    if (AHasPermission && BHasPermission || (layout.isShared() && (AHasPermission || BHasPermission))) {
-                        found = layout;
-                    }
+        if (resolvedA != null) {
+            final Layout resolved = resolvedA.get(playerB.getUniqueId());
+            if (resolved != null) {
+                return resolved;
+            }
+        } else {
+            resolvedA = new HashMap<UUID, Layout>();
+            resolvedLayouts.put(playerA.getUniqueId(), resolvedA);
+        }
+
+        Map<UUID, Layout> resolvedB = resolvedLayouts.get(playerB.getUniqueId());
+
+        if (resolvedB == null) {
+            resolvedB = new HashMap<UUID, Layout>();
+            resolvedLayouts.put(playerB.getUniqueId(), resolvedB);
+        }
+
+        final Layout resolved = resolveLayout(playerA, playerB, defaultLayout);
+
+        resolvedA.put(playerB.getUniqueId(), resolved);
+        resolvedB.put(playerA.getUniqueId(), resolved);
+
+        return resolved;
+
+    }
+
+    private Layout resolveLayout(Player playerA, Player playerB, Layout defaultLayout) {
 
-                } else {
-                    found = layout;
+        // The first layout with a higher priority than the default that the players may use wins
+        for (Layout layout : sortedLayouts) {
+
+            if (layout.getPriority() <= defaultLayout.getPriority()) {
+                break;
+            }
+
+            if (layout.getPermission() != null) {
+
+                final boolean AHasPermission = playerA.hasPermission(layout.getPermission());
+                final boolean BHasPermission = playerB.hasPermission(layout.getPermission());
+
+                if (AHasPermission && BHasPermission || (layout.isShared() && (AHasPermission || BHasPermission))) {
+                    return layout;
                 }
 
+            } else {
+                return layout;
             }
+
         }
 
-        return found;
+        return defaultLayout;
+
+    }
+
+    /**
+     * Drops all cached layouts of pairs with this player. Call this when the permissions of the player changed.
+     */
+    public void invalidate(UUID player) {
+        final Map<UUID, Layout> resolved = resolvedLayouts.remove(player);
+        if (resolved != null) {
+            for (UUID other : resolved.keySet()) {
+                final Map<UUID, Layout> resolvedOther = resolvedLayouts.get(other);
+                if (resolvedOther != null) {
+                    resolvedOther.remove(player);
+                }
+            }
+        }
+    }
 
+    public void invalidateAll() {
+        resolvedLayouts.clear();
+        resolvedDefault = null;
     }
 
     public Layout getDefaultLayout() {
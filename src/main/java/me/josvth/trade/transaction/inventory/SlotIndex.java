@@ -0,0 +1,124 @@
+package me.josvth.trade.transaction.inventory;
+
+import me.josvth.trade.transaction.inventory.slot.InventorySlot;
+import me.josvth.trade.transaction.inventory.slot.MirrorSlot;
+import me.josvth.trade.transaction.inventory.slot.Slot;
+import me.josvth.trade.transaction.inventory.slot.TradeSlot;
+
+import java.util.*;
+
+/**
+ * Immutable lookup tables over the slots of a holder, built once when the slots are created.
+ */
+public class SlotIndex {
+
+    private static final TradeSlot[] NO_TRADE_SLOTS = new TradeSlot[0];
+    private static final MirrorSlot[] NO_MIRROR_SLOTS = new MirrorSlot[0];
+    private static final InventorySlot[] NO_INVENTORY_SLOTS = new InventorySlot[0];
+
+    private final Map<Class<?>, List<? extends Slot>> slotsByClass;
+
+    private final TradeSlot[][] tradeSlots;
+    private final MirrorSlot[][] mirrorSlots;
+    private final InventorySlot[][] inventorySlots;
+
+    public SlotIndex(Slot[] slots) {
+
+        final Map<Class<?>, List<Slot>> byClass = new HashMap<Class<?>, List<Slot>>();
+
+        final Map<Integer, List<TradeSlot>> byOfferIndex = new HashMap<Integer, List<TradeSlot>>();
+        final Map<Integer, List<MirrorSlot>> byMirrorIndex = new HashMap<Integer, List<MirrorSlot>>();
+        final Map<Integer, List<InventorySlot>> byInventorySlot = new HashMap<Integer, List<InventorySlot>>();
+
+        for (Slot slot : slots) {
+
+            if (slot == null) {
+                continue;
+            }
+
+            // Register the slot under its own class and all its super classes
+            for (Class<?> clazz = slot.getClass(); clazz != null && Slot.class.isAssignableFrom(clazz); clazz = clazz.getSuperclass()) {
+                List<Slot> list = byClass.get(clazz);
+                if (list == null) {
+                    list = new ArrayList<Slot>();
+                    byClass.put(clazz, list);
+                }
+                list.add(slot);
+            }
+
+            if (slot instanceof TradeSlot) {
+                add(byOfferIndex, ((TradeSlot) slot).getOfferIndex(), (TradeSlot) slot);
+            } else if (slot instanceof MirrorSlot) {
+                add(byMirrorIndex, ((MirrorSlot) slot).getOfferIndex(), (MirrorSlot) slot);
+            } else if (slot instanceof InventorySlot) {
+                add(byInventorySlot, ((InventorySlot) slot).getInventorySlot(), (InventorySlot) slot);
+            }
+
+        }
+
+        slotsByClass = new HashMap<Class<?>, List<? extends Slot>>(byClass.size());
+        for (Map.Entry<Class<?>, List<Slot>> entry : byClass.entrySet()) {
+            slotsByClass.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+
+        tradeSlots = new TradeSlot[length(byOfferIndex)][];
+        for (int i = 0; i < tradeSlots.length; i++) {
+            final List<TradeSlot> list = byOfferIndex.get(i);
+            tradeSlots[i] = (list == null) ? NO_TRADE_SLOTS : list.toArray(new TradeSlot[list.size()]);
+        }
+
+        mirrorSlots = new MirrorSlot[length(byMirrorIndex)][];
+        for (int i = 0; i < mirrorSlots.length; i++) {
+            final List<MirrorSlot> list = byMirrorIndex.get(i);
+            mirrorSlots[i] = (list == null) ? NO_MIRROR_SLOTS : list.toArray(new MirrorSlot[list.size()]);
+        }
+
+        inventorySlots = new InventorySlot[length(byInventorySlot)][];
+        for (int i = 0; i < inventorySlots.length; i++) {
+            final List<InventorySlot> list = byInventorySlot.get(i);
+            inventorySlots[i] = (list == null) ? NO_INVENTORY_SLOTS : list.toArray(new InventorySlot[list.size()]);
+        }
+
+    }
+
+    private static <T> void add(Map<Integer, List<T>> map, int index, T slot) {
+        if (index < 0) {
+            return;
+        }
+        List<T> list = map.get(index);
+        if (list == null) {
+            list = new ArrayList<T>(1);
+            map.put(index, list);
+        }
+        list.add(slot);
+    }
+
+    private static int length(Map<Integer, ?> map) {
+        int length = 0;
+        for (Integer index : map.keySet()) {
+            length = Math.max(length, index + 1);
+        }
+        return length;
+    }
+
+    /**
+     * Returns all slots that are an instance of the given class. The returned list is shared and can't be modified.
+     */
+    public <T extends Slot> List<T> getSlotsOfType(Class<T> clazz) {
+        final List<? extends Slot> slots = slotsByClass.get(clazz);
+        return (slots == null) ? Collections.<T>emptyList() : (List<T>) slots;
+    }
+
+    public TradeSlot[] getTradeSlots(int offerIndex) {
+        return (offerIndex >= 0 && offerIndex < tradeSlots.length) ? tradeSlots[offerIndex] : NO_TRADE_SLOTS;
+    }
+
+    public MirrorSlot[] getMirrorSlots(int offerIndex) {
+        return (offerIndex >= 0 && offerIndex < mirrorSlots.length) ? mirrorSlots[offerIndex] : NO_MIRROR_SLOTS;
+    }
+
+    public InventorySlot[] getInventorySlots(int inventorySlot) {
+        return (inventorySlot >= 0 && inventorySlot < inventorySlots.length) ? inventorySlots[inventorySlot] : NO_INVENTORY_SLOTS;
+    }
+
+}
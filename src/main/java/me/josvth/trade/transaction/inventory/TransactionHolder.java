@@ -3,6 +3,7 @@ package me.josvth.trade.transaction.inventory;
 import me.josvth.trade.Trade;
 import me.josvth.trade.transaction.Trader;
 import me.josvth.trade.transaction.Transaction;
+import me.josvth.trade.transaction.TransactionOptions;
 import me.josvth.trade.transaction.action.trader.status.CloseAction;
 import me.josvth.trade.transaction.action.trader.status.RefuseAction;
 import me.josvth.trade.transaction.inventory.interact.ClickContext;
@@ -12,6 +13,7 @@ import me.josvth.trade.transaction.inventory.offer.Offer;
 import me.josvth.trade.transaction.inventory.offer.OfferList;
 import me.josvth.trade.transaction.inventory.slot.OutsideSlot;
 import me.josvth.trade.transaction.inventory.slot.Slot;
+import me.josvth.trade.util.TokenBucket;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.Bukkit;
 import org.bukkit.event.inventory.InventoryClickEvent;
@@ -21,7 +23,10 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class TransactionHolder implements InventoryHolder {
@@ -32,12 +37,20 @@ public class TransactionHolder implements InventoryHolder {
     private final OfferList inventoryList;
 
     private Slot[] slots;
+    private SlotIndex slotIndex;
     private OutsideSlot outsideSlot;
 
     private Inventory inventory;
 
     private Offer cursorOffer;
 
+    // Slots that are rendered on the next flush
+    private final BitSet dirtySlots = new BitSet();
+    private boolean cursorDirty = false;
+
+    // Limits the clicks and drags handled, null if unlimited
+    private final TokenBucket clickLimit;
+
     public TransactionHolder(Trade trade, Trader trader) {
         this.plugin = trade;
 
@@ -45,7 +58,11 @@ public class TransactionHolder implements InventoryHolder {
         this.inventoryList = new OfferList(trader, LayoutManager.PLAYER_INVENTORY_SIZE, OfferList.Type.INVENTORY);
 
         this.slots          = getLayout().createSlots(this);
+        this.slotIndex      = new SlotIndex(slots);
         this.outsideSlot    = getLayout().getOutsideSlot(this);
+
+        final TransactionOptions options = getTransaction().getManager().getOptions();
+        this.clickLimit     = (options.getClicksPerSecond() > 0) ? new TokenBucket(Math.max(1, options.getClickBurst()), options.getClicksPerSecond()) : null;
     }
 
     public Slot[] getSlots() {
@@ -84,21 +101,51 @@ public class TransactionHolder implements InventoryHolder {
     }
 
     public void updateCursorOffer() {
-        final TransactionHolder holder = this;
-        Bukkit.getScheduler().runTask(getTransaction().getPlugin(), new Runnable() {
-            @Override
-            public void run() {
-                if (getCursorOffer() == null) {
-                    getTrader().getPlayer().setItemOnCursor(null);
-                } else {
-                    final ItemStack cursorItem = getCursorOffer().createItem(holder);
-                    if (cursorItem == null) {
-                        setCursorOffer(null, false);
-                    }
-                    getTrader().getPlayer().setItemOnCursor(cursorItem);
+        cursorDirty = true;
+        getTransaction().getManager().getUpdateTask().queue(this);
+    }
+
+    /**
+     * Marks the slot to be rendered with the next flush. Slots that are queued several times in one tick are only
+     * rendered once.
+     */
+    public void queueUpdate(Slot slot) {
+        dirtySlots.set(slot.getSlot());
+        getTransaction().getManager().getUpdateTask().queue(this);
+    }
+
+    public void queueUpdate(Collection<? extends Slot> slots) {
+        for (Slot slot : slots) {
+            dirtySlots.set(slot.getSlot());
+        }
+        getTransaction().getManager().getUpdateTask().queue(this);
+    }
+
+    /**
+     * Renders all dirty slots and the cursor.
+     */
+    public void flush() {
+
+        for (int i = dirtySlots.nextSetBit(0); i >= 0; i = dirtySlots.nextSetBit(i + 1)) {
+            dirtySlots.clear(i);
+            if (slots[i] != null) {
+                slots[i].update();
+            }
+        }
+
+        if (cursorDirty) {
+            cursorDirty = false;
+            if (getCursorOffer() == null) {
+                getTrader().getPlayer().setItemOnCursor(null);
+            } else {
+                final ItemStack cursorItem = getCursorOffer().createItem(this);
+                if (cursorItem == null) {
+                    setCursorOffer(null, false);
                 }
+                getTrader().getPlayer().setItemOnCursor(cursorItem);
             }
-        });
+        }
+
     }
 
     public void updateAllSlots() {
@@ -127,18 +174,12 @@ public class TransactionHolder implements InventoryHolder {
         return inventory;
     }
 
-    public <T extends Slot> Set<T> getSlotsOfType(Class<T> clazz) {
-
-        final Set<T> set = new HashSet<T>();
-
-        for (Slot slot : slots) {
-            if (clazz.isInstance(slot)) {
-                set.add((T) slot);
-            }
-        }
-
-        return set;
+    public SlotIndex getSlotIndex() {
+        return slotIndex;
+    }
 
+    public <T extends Slot> List<T> getSlotsOfType(Class<T> clazz) {
+        return slotIndex.getSlotsOfType(clazz);
     }
 
     public OfferList getOfferList() {
@@ -152,6 +193,12 @@ public class TransactionHolder implements InventoryHolder {
     // Event handling
     public void onClick(InventoryClickEvent event) {
 
+        // Throttled clicks are cancelled before any behaviour runs
+        if (clickLimit != null && !clickLimit.tryConsume()) {
+            event.setCancelled(true);
+            return;
+        }
+
         final Slot slot;
 
         if (event.getRawSlot() == -999) {
@@ -199,7 +246,7 @@ public class TransactionHolder implements InventoryHolder {
 
     public void onDrag(InventoryDragEvent event) {
 
-        if (!getTransaction().getManager().getOptions().getAllowDragging()) {
+        if (!getTransaction().getManager().getOptions().getAllowDragging() || (clickLimit != null && !clickLimit.tryConsume())) {
             event.setCancelled(true);
             return;
         }
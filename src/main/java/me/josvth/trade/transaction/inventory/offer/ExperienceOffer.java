@@ -1,10 +1,8 @@
 package me.josvth.trade.transaction.inventory.offer;
 
 import me.josvth.trade.transaction.Trader;
-import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.transaction.inventory.offer.description.ExperienceOfferDescription;
 import me.josvth.trade.util.ExperienceManager;
-import org.bukkit.inventory.ItemStack;
 
 public class ExperienceOffer extends Offer {
 
@@ -31,7 +29,7 @@ public class ExperienceOffer extends Offer {
 
     @Override
     public String getType() {
-        return "experience";
+        return TYPE_NAME;
     }
 
     @Override
@@ -39,16 +37,6 @@ public class ExperienceOffer extends Offer {
         return (ExperienceOfferDescription) super.getDescription(trader);
     }
 
-    @Override
-    public ItemStack createItem(TransactionHolder holder) {
-        return getDescription(holder.getTrader()).createItem(this, holder);
-    }
-
-    @Override
-    public ItemStack createMirrorItem(TransactionHolder holder) {
-        return getDescription(holder.getTrader()).createMirrorItem(this, holder);
-    }
-
     @Override
     public double getAmount() {
         return experience;
@@ -57,6 +45,7 @@ public class ExperienceOffer extends Offer {
     @Override
     public void setAmount(double amount) {
         this.experience = amount;
+        changed();
     }
 
     @Override
@@ -85,7 +74,7 @@ public class ExperienceOffer extends Offer {
     }
 
     public void grant(Trader trader, boolean nextTick, double experience) {
-        new ExperienceManager(trader.getPlayer()).changeExp(experience);
+        ExperienceManager.changeExp(trader.getPlayer(), experience);
     }
 
 }
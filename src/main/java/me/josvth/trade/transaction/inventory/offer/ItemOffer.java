@@ -1,11 +1,7 @@
 package me.josvth.trade.transaction.inventory.offer;
 
-import me.josvth.trade.Trade;
 import me.josvth.trade.transaction.Trader;
-import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.transaction.inventory.offer.description.ItemOfferDescription;
-import me.josvth.trade.util.ItemStackUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
@@ -98,33 +94,31 @@ public class ItemOffer extends Offer {
     // 6-7-2014 I decided to not use an ItemStack field anymore because ItemStacks have some hard programmed behaviour
     // For example: ItemStack.setAmount(0) will always make the ItemStack of type AIR
     //private ItemStack item = null;
-    private Material type;
+    private ItemSnapshot item;
     private int amount;
-    private MaterialData data;
-    private short durability;
-    private ItemMeta meta;
 
     public ItemOffer() {
-        this(null);
+        this(null, 0);
     }
 
     public ItemOffer(ItemStack item) {
-        this(item.getType(), item.getAmount(), item.getDurability(), item.getData(), item.getItemMeta());
+        this(ItemSnapshot.of(item), item.getAmount());
     }
 
     public ItemOffer(Material type, int amount, short durability, MaterialData data, ItemMeta meta) {
-        this.type = type;
+        this(ItemSnapshot.of(type, durability, data, meta), amount);
+    }
+
+    public ItemOffer(ItemSnapshot item, int amount) {
+        this.item = item;
         this.amount = amount;
-        this.data = data;
-        this.durability = durability;
-        this.meta = meta;
         setAllowedInInventory(true);
         setCanStayInInventory(true);
     }
 
     @Override
     public String getType() {
-        return "item";
+        return TYPE_NAME;
     }
 
     @Override
@@ -132,16 +126,6 @@ public class ItemOffer extends Offer {
         return (ItemOfferDescription) super.getDescription(trader);
     }
 
-    @Override
-    public ItemStack createItem(TransactionHolder holder) {
-        return getDescription(holder.getTrader()).createItem(this, holder);
-    }
-
-    @Override
-    public ItemStack createMirrorItem(TransactionHolder holder) {
-        return getDescription(holder.getTrader()).createMirrorItem(this, holder);
-    }
-
     @Override
     public double add(double amount) {
         final double integerAmount = Math.floor(amount);
@@ -174,34 +158,28 @@ public class ItemOffer extends Offer {
 
     public void setIntAmount(int amount) {
         this.amount = amount;
+        changed();
     }
 
     @Override
     public int getMaxAmount() {
-        return type.getMaxStackSize();
+        return item.getMaxStackSize();
     }
 
     @Override
     public boolean isFull() {
-        return amount >= type.getMaxStackSize();
+        return amount >= item.getMaxStackSize();
     }
 
     @Override
-    public void grant(final Trader trader, boolean nextTick) {
-        if (nextTick) {
-            Bukkit.getScheduler().runTask(Trade.getInstance(), new Runnable() {         //TODO Make this nicer
-                @Override
-                public void run() {
-                    trader.getPlayer().getInventory().addItem(createItemStack());
-                }
-            });
-        } else {
-            trader.getPlayer().getInventory().addItem(createItemStack());
-        }
+    public void grant(Trader trader, boolean nextTick) {
+        final OfferGrant grant = new OfferGrant(nextTick);
+        grant(trader, grant);
+        grant.execute();
     }
 
     @Override
-    public void grant(final Trader trader, boolean nextTick, double amount) {
+    public void grant(Trader trader, boolean nextTick, double amount) {
 
         final ItemStack item = createItemStack();
 
@@ -211,37 +189,38 @@ public class ItemOffer extends Offer {
             item.setAmount(((int) amount));
         }
 
-        if (nextTick) {
-            Bukkit.getScheduler().runTask(Trade.getInstance(), new Runnable() {         //TODO Make this nicer
-                @Override
-                public void run() {
-                    trader.getPlayer().getInventory().addItem(item);
-                }
-            });
-        } else {
-            trader.getPlayer().getInventory().addItem(item);
-        }
+        final OfferGrant grant = new OfferGrant(nextTick);
+        grant.addItem(trader, item);
+        grant.execute();
+
+    }
+
+    @Override
+    public void grant(Trader trader, OfferGrant grant) {
+        grant.addItem(trader, createItemStack());
     }
 
     public ItemStack createItemStack() {
-        return ItemStackUtils.create(type, amount, durability, data, meta);
+        return (item == null) ? null : item.createItemStack(amount);
+    }
+
+    public ItemSnapshot getItem() {
+        return item;
     }
 
     public void setItem(ItemStack item) {
-        type = item.getType();
-        amount = item.getAmount();
-        durability = item.getDurability();
-        data = item.getData();
-        meta = item.getItemMeta();
+        this.item = ItemSnapshot.of(item);
+        this.amount = item.getAmount();
+        changed();
     }
 
     public ItemOffer clone() {
-        return new ItemOffer(type, amount, durability, data, meta);
+        return new ItemOffer(item, amount);
     }
 
     @Override
     public boolean isSimilar(Offer offer) {
-        return offer instanceof ItemOffer && (createItemStack() != null) && createItemStack().isSimilar(((ItemOffer) offer).createItemStack());
+        return offer instanceof ItemOffer && item != null && item.isSimilar(((ItemOffer) offer).item);
     }
 
 }
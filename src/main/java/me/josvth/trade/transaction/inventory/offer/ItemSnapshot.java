@@ -0,0 +1,130 @@
+package me.josvth.trade.transaction.inventory.offer;
+
+import me.josvth.trade.util.ItemStackUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.material.MaterialData;
+
+/**
+ * Immutable description of an item without its amount. Offers of the same item share a snapshot, the similarity
+ * fingerprint and the prototype {@link ItemStack} are only computed once.
+ */
+public final class ItemSnapshot {
+
+    private final Material type;
+    private final short durability;
+    private final MaterialData data;
+    private final ItemMeta meta;
+
+    private final int fingerprint;
+
+    private ItemStack prototype = null;
+
+    private ItemSnapshot(Material type, short durability, MaterialData data, ItemMeta meta) {
+        this.type = type;
+        this.durability = durability;
+        this.data = data;
+        this.meta = meta;
+        this.fingerprint = fingerprint(type, durability, data, meta);
+    }
+
+    public static ItemSnapshot of(ItemStack item) {
+        if (item == null) {
+            return null;
+        }
+        return of(item.getType(), item.getDurability(), item.getData(), item.hasItemMeta() ? item.getItemMeta() : null);
+    }
+
+    public static ItemSnapshot of(Material type, short durability, MaterialData data, ItemMeta meta) {
+
+        if (type == null) {
+            return null;
+        }
+
+        // Empty meta is the same as no meta
+        if (meta != null && Bukkit.getItemFactory().equals(meta, null)) {
+            meta = null;
+        }
+
+        return new ItemSnapshot(type, durability, (data == null) ? null : data.clone(), (meta == null) ? null : meta.clone());
+
+    }
+
+    private static int fingerprint(Material type, short durability, MaterialData data, ItemMeta meta) {
+        int hash = type.hashCode();
+        hash = 31 * hash + durability;
+        hash = 31 * hash + ((data == null) ? 0 : data.getData());
+        hash = 31 * hash + ((meta == null) ? 0 : meta.hashCode());
+        return hash;
+    }
+
+    public Material getType() {
+        return type;
+    }
+
+    public short getDurability() {
+        return durability;
+    }
+
+    public int getMaxStackSize() {
+        return type.getMaxStackSize();
+    }
+
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    public boolean isSimilar(ItemSnapshot other) {
+
+        if (other == this) {
+            return true;
+        }
+
+        if (other == null || other.fingerprint != fingerprint || other.type != type || other.durability != durability) {
+            return false;
+        }
+
+        if (((data == null) ? 0 : data.getData()) != ((other.data == null) ? 0 : other.data.getData())) {
+            return false;
+        }
+
+        return (meta == null) ? other.meta == null : other.meta != null && Bukkit.getItemFactory().equals(meta, other.meta);
+
+    }
+
+    /**
+     * Creates a new item stack of this item.
+     *
+     * @param amount the amount of the stack
+     * @return a new item stack the caller is free to change
+     */
+    public ItemStack createItemStack(int amount) {
+
+        if (prototype == null) {
+            prototype = ItemStackUtils.create(type, 1, durability, data, meta);
+        }
+
+        final ItemStack item = prototype.clone();
+        item.setAmount(amount);
+        return item;
+
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ItemSnapshot && isSimilar((ItemSnapshot) o);
+    }
+
+    @Override
+    public int hashCode() {
+        return fingerprint;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemSnapshot{type=" + type + ", durability=" + durability + ", meta=" + meta + "}";
+    }
+
+}
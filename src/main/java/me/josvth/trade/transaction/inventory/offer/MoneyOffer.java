@@ -1,10 +1,7 @@
 package me.josvth.trade.transaction.inventory.offer;
 
-import me.josvth.trade.Trade;
 import me.josvth.trade.transaction.Trader;
-import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.transaction.inventory.offer.description.MoneyOfferDescription;
-import org.bukkit.inventory.ItemStack;
 
 public class MoneyOffer extends Offer {
 
@@ -31,7 +28,7 @@ public class MoneyOffer extends Offer {
 
     @Override
     public String getType() {
-        return "money";
+        return TYPE_NAME;
     }
 
     @Override
@@ -39,16 +36,6 @@ public class MoneyOffer extends Offer {
         return (MoneyOfferDescription) super.getDescription(trader);
     }
 
-    @Override
-    public ItemStack createItem(TransactionHolder holder) {
-        return getDescription(holder.getTrader()).createItem(this, holder);
-    }
-
-    @Override
-    public ItemStack createMirrorItem(TransactionHolder holder) {
-        return getDescription(holder.getTrader()).createMirrorItem(this, holder);
-    }
-
     @Override
     public double getAmount() {
         return amount;
@@ -57,6 +44,7 @@ public class MoneyOffer extends Offer {
     @Override
     public void setAmount(double amount) {
         this.amount = amount;
+        changed();
     }
 
     @Override
@@ -81,8 +69,7 @@ public class MoneyOffer extends Offer {
 
     @Override
     public void grant(Trader trader, boolean nextTick, double amount) {
-        Trade.getInstance().getEconomy().depositPlayer(trader.getName(), amount);
-        // TODO Check if successful
+        // Offered money never leaves the account of the owner, the money ledger of the transaction settles it
     }
 
 }
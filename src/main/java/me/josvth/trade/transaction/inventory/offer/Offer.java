@@ -29,6 +29,13 @@ public abstract class Offer {
     protected boolean allowedInInventory = false;
     protected boolean canStayInInventory = false;
 
+    // Incremented whenever the amount or the item of this offer changes
+    private int version = 0;
+
+    // Items are only rendered again if the offer, the description or the viewing holder changed
+    private RenderedItem renderedItem = null;
+    private RenderedItem renderedMirrorItem = null;
+
     //TODO Cleanup offer creation and cloning
     public static <T extends Offer> T split(T offer) {
 
@@ -119,12 +126,51 @@ public abstract class Offer {
 
     public abstract String getType();
 
-    public abstract ItemStack createItem(TransactionHolder holder);
+    public int getVersion() {
+        return version;
+    }
 
-    public abstract ItemStack createMirrorItem(TransactionHolder holder);
+    /**
+     * Marks the contents of this offer as changed so rendered items get rebuilt. Implementations should call this
+     * whenever the amount or the item changes.
+     */
+    protected void changed() {
+        version++;
+    }
+
+    /**
+     * Returns the item that represents this offer to the given holder. The returned item is shared between calls and
+     * should not be changed.
+     */
+    public ItemStack createItem(TransactionHolder holder) {
+        final OfferDescription<Offer> description = (OfferDescription<Offer>) getDescription(holder.getTrader());
+        if (renderedItem == null || !renderedItem.isValid(version, description, holder)) {
+            renderedItem = new RenderedItem(version, description, holder, description.createItem(this, holder));
+        }
+        return renderedItem.item;
+    }
+
+    /**
+     * Returns the item that represents this offer in the mirror slots of the given holder. The returned item is shared
+     * between calls and should not be changed.
+     */
+    public ItemStack createMirrorItem(TransactionHolder holder) {
+        final OfferDescription<Offer> description = (OfferDescription<Offer>) getDescription(holder.getTrader());
+        if (renderedMirrorItem == null || !renderedMirrorItem.isValid(version, description, holder)) {
+            renderedMirrorItem = new RenderedItem(version, description, holder, description.createMirrorItem(this, holder));
+        }
+        return renderedMirrorItem.item;
+    }
 
     public abstract void grant(Trader trader, boolean nextTick);
 
+    /**
+     * Grants this offer as part of a batch of grants. By default the offer is granted on its own.
+     */
+    public void grant(Trader trader, OfferGrant grant) {
+        grant(trader, grant.isNextTick());
+    }
+
     public boolean isAllowedInInventory() {
         return allowedInInventory;
     }
@@ -248,4 +294,25 @@ public abstract class Offer {
     public String toString() {
         return getClass().getSimpleName() + "{" + getAmount() + "}";
     }
+
+    private static class RenderedItem {
+
+        private final int version;
+        private final OfferDescription<?> description;
+        private final TransactionHolder holder;
+        private final ItemStack item;
+
+        private RenderedItem(int version, OfferDescription<?> description, TransactionHolder holder, ItemStack item) {
+            this.version = version;
+            this.description = description;
+            this.holder = holder;
+            this.item = item;
+        }
+
+        private boolean isValid(int version, OfferDescription<?> description, TransactionHolder holder) {
+            return this.version == version && this.description == description && this.holder == holder;
+        }
+
+    }
+
 }
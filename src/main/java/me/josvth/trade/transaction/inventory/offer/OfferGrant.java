@@ -0,0 +1,127 @@
+package me.josvth.trade.transaction.inventory.offer;
+
+import me.josvth.trade.Trade;
+import me.josvth.trade.transaction.Trader;
+import me.josvth.trade.transaction.journal.ActionJournal;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the items granted to traders so they can be added to the inventories in one pass.
+ * <p/>
+ * Items that don't fit in the inventory of the receiver are dropped at the receiver. Items of a receiver that is offline
+ * are kept in the journal until the receiver joins again.
+ */
+public class OfferGrant {
+
+    private final boolean nextTick;
+
+    private final Map<Trader, List<ItemStack>> items = new LinkedHashMap<Trader, List<ItemStack>>(2);
+
+    public OfferGrant(boolean nextTick) {
+        this.nextTick = nextTick;
+    }
+
+    public boolean isNextTick() {
+        return nextTick;
+    }
+
+    public void addItem(Trader receiver, ItemStack item) {
+
+        if (item == null) {
+            return;
+        }
+
+        List<ItemStack> list = items.get(receiver);
+        if (list == null) {
+            list = new ArrayList<ItemStack>();
+            items.put(receiver, list);
+        }
+
+        list.add(item);
+
+    }
+
+    public void execute() {
+
+        if (items.isEmpty()) {
+            return;
+        }
+
+        // Nothing can be scheduled any more once the plugin is disabled
+        if (!nextTick || !Trade.getInstance().isEnabled()) {
+            addItems();
+            return;
+        }
+
+        // A disconnecting receiver is gone next tick, its inventory is only saved after the quit event
+        final Iterator<Map.Entry<Trader, List<ItemStack>>> iterator = items.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Trader, List<ItemStack>> entry = iterator.next();
+            if (entry.getKey().getState() == Trader.State.DISCONNECTED) {
+                addItems(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        if (!items.isEmpty()) {
+            Bukkit.getScheduler().runTask(Trade.getInstance(), new Runnable() {
+                @Override
+                public void run() {
+                    addItems();
+                }
+            });
+        }
+
+    }
+
+    private void addItems() {
+
+        for (Map.Entry<Trader, List<ItemStack>> entry : items.entrySet()) {
+            addItems(entry.getKey(), entry.getValue());
+        }
+
+        items.clear();
+
+    }
+
+    private void addItems(Trader receiver, List<ItemStack> stacks) {
+
+        final Player player = receiver.getPlayer();
+
+        if (player == null) {
+            mail(receiver, stacks);
+            return;
+        }
+
+        final Map<Integer, ItemStack> leftovers = player.getInventory().addItem(stacks.toArray(new ItemStack[stacks.size()]));
+
+        for (ItemStack leftover : leftovers.values()) {
+            player.getWorld().dropItem(player.getLocation(), leftover);
+        }
+
+    }
+
+    private void mail(Trader receiver, List<ItemStack> stacks) {
+
+        final ActionJournal journal = Trade.getInstance().getTransactionManager().getJournal();
+
+        if (journal == null || journal.hasFailed()) {
+            Trade.getInstance().getLogger().severe("Could not return " + stacks + " to " + receiver.getID() + ", the player is offline and the journal is disabled.");
+            return;
+        }
+
+        for (ItemStack stack : stacks) {
+            journal.mail(receiver.getID(), stack);
+        }
+
+    }
+
+}
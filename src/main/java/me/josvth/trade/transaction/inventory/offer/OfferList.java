@@ -4,6 +4,7 @@ import me.josvth.trade.transaction.Trader;
 import me.josvth.trade.transaction.inventory.TransactionHolder;
 import org.apache.commons.lang.Validate;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
@@ -16,10 +17,19 @@ public class OfferList {
 
     private Offer[] offers;
 
+    // Slot indexes kept in sync by set(int, Offer) so lookups don't have to scan the offers, keyed by lower case type
+    private final Map<String, TypeIndex> typeIndex = new HashMap<String, TypeIndex>();
+    private final BitSet free = new BitSet();
+
+    // The amount each slot had when it was last set, offers can be changed in place before they are set again
+    private double[] amounts;
+
     public OfferList(Trader trader, int size, Type type) {
         this.trader = trader;
         this.offers = new Offer[size];
+        this.amounts = new double[size];
         this.type = type;
+        free.set(0, size);
     }
 
     public Trader getTrader() {
@@ -37,6 +47,7 @@ public class OfferList {
     public void setContents(Offer[] contents) {
         Validate.notNull(contents, "Contents can't be null.");
         this.offers = contents;
+        rebuildIndex();
     }
 
     public Offer get(int slot) {
@@ -44,7 +55,74 @@ public class OfferList {
     }
 
     public void set(int slot, Offer offer) {
+
+        final Offer previous = offers[slot];
+
         offers[slot] = offer;
+
+        if (previous != null) {
+            final TypeIndex index = getIndex(previous.getType());
+            index.slots.clear(slot);
+            index.total -= amounts[slot];
+            amounts[slot] = 0;
+            // Don't let rounding errors of the running sum linger once the type is gone
+            if (index.slots.isEmpty()) {
+                index.total = 0;
+            }
+        }
+
+        if (offer != null) {
+            final TypeIndex index = getIndex(offer.getType());
+            index.slots.set(slot);
+            index.total += amounts[slot] = offer.getAmount();
+            free.clear(slot);
+        } else {
+            free.set(slot);
+        }
+
+    }
+
+    /**
+     * Returns the summed amount of all offers of the given type in this list.
+     *
+     * @param type the offer type as returned by {@link Offer#getType()}
+     * @return the total amount
+     */
+    public double getTotal(String type) {
+        final TypeIndex index = typeIndex.get(type.toLowerCase());
+        return (index == null) ? 0 : index.total;
+    }
+
+    private TypeIndex getIndex(String type) {
+        final String key = type.toLowerCase();
+        TypeIndex index = typeIndex.get(key);
+        if (index == null) {
+            index = new TypeIndex(offers.length);
+            typeIndex.put(key, index);
+        }
+        return index;
+    }
+
+    private BitSet getSlotsOfType(String type) {
+        return getIndex(type).slots;
+    }
+
+    private void rebuildIndex() {
+
+        typeIndex.clear();
+        free.clear();
+        amounts = new double[offers.length];
+
+        for (int i = 0; i < offers.length; i++) {
+            if (offers[i] == null) {
+                free.set(i);
+            } else {
+                final TypeIndex index = getIndex(offers[i].getType());
+                index.slots.set(i);
+                index.total += amounts[i] = offers[i].getAmount();
+            }
+        }
+
     }
 
     @Override
@@ -64,7 +142,7 @@ public class OfferList {
 
         final TreeMap<Integer, T> found = new TreeMap<Integer, T>();
 
-        for (int i = 0; i < offers.length; i++) {
+        for (int i = free.nextClearBit(0); i < offers.length; i = free.nextClearBit(i + 1)) {
             if (clazz.isInstance(offers[i])) {
                 found.put(i, (T) offers[i]);
             }
@@ -78,8 +156,10 @@ public class OfferList {
 
         final TreeMap<Integer, Offer> found = new TreeMap<Integer, Offer>();
 
-        for (int i = 0; i < offers.length; i++) {
-            if (offers[i] != null && type.equalsIgnoreCase(offers[i].getType())) {
+        final TypeIndex index = typeIndex.get(type.toLowerCase());
+
+        if (index != null) {
+            for (int i = index.slots.nextSetBit(0); i >= 0; i = index.slots.nextSetBit(i + 1)) {
                 found.put(i, offers[i]);
             }
         }
@@ -89,19 +169,18 @@ public class OfferList {
     }
 
     public int getFirstEmpty() {
-        for (int i = 0; i < offers.length; i++) {
-            if (offers[i] == null) {
-                return i;
-            }
-        }
-        return -1;
+        return free.nextSetBit(0);
     }
 
     public void grant(Trader trader, boolean nextTick) {
-        for (Offer offer : offers) {
-            if (offer != null) {
-                offer.grant(trader, nextTick);
-            }
+        final OfferGrant grant = new OfferGrant(nextTick);
+        grant(trader, grant);
+        grant.execute();
+    }
+
+    public void grant(Trader trader, OfferGrant grant) {
+        for (int i = free.nextClearBit(0); i < offers.length; i = free.nextClearBit(i + 1)) {
+            offers[i].grant(trader, grant);
         }
     }
 
@@ -113,23 +192,28 @@ public class OfferList {
         result.setChanges(changes);
 
         // First we try and fill up existing offers
-        for (Map.Entry<Integer, Offer> entry : getOfType(offer.getType()).entrySet()) {
+        final BitSet slots = getSlotsOfType(offer.getType());
+
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+
+            final Offer existing = offers[slot];
 
-            if (offer.isSimilar(entry.getValue())) {
+            if (offer.isSimilar(existing)) {
 
                 if (result.getRemaining() > 0) {
 
-                    final double overflow = entry.getValue().add(result.getRemaining());
+                    final double overflow = existing.add(result.getRemaining());
 
                     // If we have added something change the remaining levels and add this slot to the changed indexes
                     if (overflow < result.getRemaining()) {
-                        changes.put(entry.getKey(), entry.getValue()); // We keep track of what we changed
+                        set(slot, existing);    // Refresh the totals
+                        changes.put(slot, existing); // We keep track of what we changed
                         result.setRemaining(overflow);
                     }
 
                 }
 
-                result.setCurrentAmount(result.getCurrentAmount() + entry.getValue().getAmount()); // We count the total amount currently offered
+                result.setCurrentAmount(result.getCurrentAmount() + existing.getAmount()); // We count the total amount currently offered
 
             }
 
@@ -193,29 +277,34 @@ public class OfferList {
 
         // TODO lowest amount first
         // First we try and remove from existing offers
-        for (Map.Entry<Integer, Offer> entry : getOfType(offer.getType()).entrySet()) {
+        final BitSet slots = getSlotsOfType(offer.getType());
 
-            if (offer.isSimilar(entry.getValue())) {
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+
+            final Offer existing = offers[slot];
+
+            if (offer.isSimilar(existing)) {
                 if (result.getRemaining() > 0) {
 
-                    final double overflow = entry.getValue().remove(result.getRemaining());
+                    final double overflow = existing.remove(result.getRemaining());
 
                     if (overflow < result.getRemaining()) {    // We only changed something if the overflow is smaller then the amount
 
                         result.setRemaining(overflow);
 
-                        if (entry.getValue().getAmount() == 0) {    // If the amount of the changed offer is 0 we remove it
-                            set(entry.getKey(), null);
-                            changes.put(entry.getKey(), null);
+                        if (existing.getAmount() == 0) {    // If the amount of the changed offer is 0 we remove it
+                            set(slot, null);
+                            changes.put(slot, null);
                         } else {
-                            changes.put(entry.getKey(), entry.getValue());
+                            set(slot, existing);    // Refresh the totals
+                            changes.put(slot, existing);
                         }
 
                     }
 
                 }
 
-                result.setCurrentAmount(result.getCurrentAmount() + entry.getValue().getAmount());
+                result.setCurrentAmount(result.getCurrentAmount() + existing.getAmount());
             }
 
         }
@@ -234,4 +323,15 @@ public class OfferList {
         INVENTORY
     }
 
+    private static class TypeIndex {
+
+        private final BitSet slots;
+        private double total = 0;
+
+        private TypeIndex(int size) {
+            this.slots = new BitSet(size);
+        }
+
+    }
+
 }
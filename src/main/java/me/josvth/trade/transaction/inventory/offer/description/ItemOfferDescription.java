@@ -8,7 +8,7 @@ public class ItemOfferDescription extends OfferDescription<ItemOffer> {
 
     @Override
     public ItemStack createItem(ItemOffer offer, TransactionHolder holder) {
-        if (offer.createItemStack() != null && offer.createItemStack().getAmount() != 0) {
+        if (offer.getItem() != null && offer.getIntAmount() != 0) {
             return offer.createItemStack();
         }
         return null;
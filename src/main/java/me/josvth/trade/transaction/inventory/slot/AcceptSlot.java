@@ -1,17 +1,15 @@
 package me.josvth.trade.transaction.inventory.slot;
 
 import me.josvth.trade.Trade;
-import me.josvth.trade.tasks.SlotUpdateTask;
 import me.josvth.trade.transaction.Trader;
 import me.josvth.trade.transaction.action.trader.status.AcceptAction;
 import me.josvth.trade.transaction.action.trader.status.DenyAction;
 import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.transaction.inventory.interact.ClickContext;
 import me.josvth.trade.util.ItemStackUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.Set;
+import java.util.List;
 
 public class AcceptSlot extends Slot {
 
@@ -24,23 +22,31 @@ public class AcceptSlot extends Slot {
 
     public static void updateAcceptSlots(TransactionHolder holder, boolean nextTick) {
 
-        final Set<AcceptSlot> slots = holder.getSlotsOfType(AcceptSlot.class);
+        final List<AcceptSlot> slots = holder.getSlotsOfType(AcceptSlot.class);
 
         if (!nextTick) {
             for (Slot slot : slots) {
                 slot.update();
             }
         } else if (!slots.isEmpty()) {
-            Bukkit.getScheduler().runTask(Trade.getInstance(), new SlotUpdateTask(slots));
+            holder.queueUpdate(slots);
         }
 
     }
 
-    public static AcceptSlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final AcceptSlot slot = new AcceptSlot(slotID, holder);
-        slot.setAcceptItem(ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("accept-item"), Trade.getInstance().getMessageManager()));
-        slot.setAcceptedItem(ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("accepted-item"), Trade.getInstance().getMessageManager()));
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final ItemStack acceptItem = ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("accept-item"), Trade.getInstance().getMessageManager());
+        final ItemStack acceptedItem = ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("accepted-item"), Trade.getInstance().getMessageManager());
+
+        return new SlotFactory() {
+            @Override
+            public AcceptSlot create(TransactionHolder holder) {
+                final AcceptSlot slot = new AcceptSlot(slotID, holder);
+                slot.setAcceptItem(acceptItem);
+                slot.setAcceptedItem(acceptedItem);
+                return slot;
+            }
+        };
     }
 
     public ItemStack getAcceptItem() {
@@ -14,10 +14,17 @@ public class CloseSlot extends Slot {
         super(slot, holder);
     }
 
-    public static CloseSlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final CloseSlot slot = new CloseSlot(slotID, holder);
-        slot.setCloseItem(ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("close-item"), Trade.getInstance().getMessageManager()));
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final ItemStack closeItem = ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("close-item"), Trade.getInstance().getMessageManager());
+
+        return new SlotFactory() {
+            @Override
+            public CloseSlot create(TransactionHolder holder) {
+                final CloseSlot slot = new CloseSlot(slotID, holder);
+                slot.setCloseItem(closeItem);
+                return slot;
+            }
+        };
     }
 
     public ItemStack getCloseItem() {
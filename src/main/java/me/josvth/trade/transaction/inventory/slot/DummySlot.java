@@ -13,10 +13,17 @@ public class DummySlot extends Slot {
         super(slot, holder);
     }
 
-    public static DummySlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final DummySlot slot = new DummySlot(slotID, holder);
-        slot.setDummyItem(ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("dummy-item"), Trade.getInstance().getMessageManager()));
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final ItemStack dummyItem = ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("dummy-item"), Trade.getInstance().getMessageManager());
+
+        return new SlotFactory() {
+            @Override
+            public DummySlot create(TransactionHolder holder) {
+                final DummySlot slot = new DummySlot(slotID, holder);
+                slot.setDummyItem(dummyItem);
+                return slot;
+            }
+        };
     }
 
     public ItemStack getDummyItem() {
@@ -1,7 +1,6 @@
 package me.josvth.trade.transaction.inventory.slot;
 
 import me.josvth.trade.Trade;
-import me.josvth.trade.tasks.ExperienceSlotUpdateTask;
 import me.josvth.trade.transaction.action.trader.offer.ChangeExperienceAction;
 import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.transaction.inventory.interact.ClickBehaviour;
@@ -10,7 +9,6 @@ import me.josvth.trade.transaction.inventory.offer.ExperienceOffer;
 import me.josvth.trade.transaction.inventory.offer.Offer;
 import me.josvth.trade.transaction.inventory.offer.OfferList;
 import me.josvth.trade.util.ItemStackUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.inventory.ItemStack;
 
@@ -108,33 +106,38 @@ public class ExperienceSlot extends Slot {
     }
 
     public static double getExperience(OfferList list) {
-        double experience = 0;
-        for (ExperienceOffer tradeable : list.getOfClass(ExperienceOffer.class).values()) {
-            experience += tradeable.getAmount();
-        }
-        return experience;
+        return list.getTotal(ExperienceOffer.TYPE_NAME);
     }
 
     public static void updateExperienceSlots(TransactionHolder holder, boolean nextTick, double experience) {
 
-        final Set<ExperienceSlot> slots = holder.getSlotsOfType(ExperienceSlot.class);
+        final List<ExperienceSlot> slots = holder.getSlotsOfType(ExperienceSlot.class);
 
         if (!nextTick) {
             for (ExperienceSlot slot : slots) {
                 slot.update(experience);
             }
         } else if (!slots.isEmpty()) {
-            Bukkit.getScheduler().runTask(Trade.getInstance(), new ExperienceSlotUpdateTask(slots, experience));
+            holder.queueUpdate(slots);
         }
 
     }
 
-    public static ExperienceSlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final ExperienceSlot slot = new ExperienceSlot(slotID, holder);
-        slot.setExperienceItem(ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("experience-item"), Trade.getInstance().getMessageManager()));
-        slot.setSmallModifier(description.getConfiguration().getInt("small-modifier", 1));
-        slot.setLargeModifier(description.getConfiguration().getInt("large-modifier", 5));
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final ItemStack experienceItem = ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("experience-item"), Trade.getInstance().getMessageManager());
+        final int smallModifier = description.getConfiguration().getInt("small-modifier", 1);
+        final int largeModifier = description.getConfiguration().getInt("large-modifier", 5);
+
+        return new SlotFactory() {
+            @Override
+            public ExperienceSlot create(TransactionHolder holder) {
+                final ExperienceSlot slot = new ExperienceSlot(slotID, holder);
+                slot.setExperienceItem(experienceItem);
+                slot.setSmallModifier(smallModifier);
+                slot.setLargeModifier(largeModifier);
+                return slot;
+            }
+        };
     }
 
     public ItemStack getExperienceItem() {
@@ -1,8 +1,6 @@
 package me.josvth.trade.transaction.inventory.slot;
 
 
-import me.josvth.trade.Trade;
-import me.josvth.trade.tasks.SlotUpdateTask;
 import me.josvth.trade.transaction.action.trader.offer.ChangeOfferAction;
 import me.josvth.trade.transaction.action.trader.offer.SetOfferAction;
 import me.josvth.trade.transaction.inventory.LayoutManager;
@@ -10,7 +8,6 @@ import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.transaction.inventory.interact.ClickBehaviour;
 import me.josvth.trade.transaction.inventory.interact.ClickContext;
 import me.josvth.trade.transaction.inventory.offer.Offer;
-import org.bukkit.Bukkit;
 import org.bukkit.event.inventory.ClickType;
 
 import java.util.*;
@@ -98,40 +95,29 @@ public class InventorySlot extends ContentSlot {
 
     public static void updateInventorySlots(TransactionHolder holder, boolean nextTick, int... inventorySlot) {
 
-        final Set<InventorySlot> slots = holder.getSlotsOfType(InventorySlot.class);
-
-        final Iterator<InventorySlot> iterator = slots.iterator();
-
-        while (iterator.hasNext()) {
-
-            final InventorySlot slot = iterator.next();
-
-            boolean notUpdated = true;
-            for (int i = 0; i < inventorySlot.length && notUpdated; i++) {
-                if (slot.getInventorySlot() == inventorySlot[i]) {
-                    if (!nextTick) {
-                        slot.update();
-                    }
-                    notUpdated = false;
+        for (int index : inventorySlot) {
+            for (InventorySlot slot : holder.getSlotIndex().getInventorySlots(index)) {
+                if (nextTick) {
+                    holder.queueUpdate(slot);
+                } else {
+                    slot.update();
                 }
             }
-
-            if (notUpdated) {
-                iterator.remove();
-            }
-
-        }
-
-        if (nextTick && !slots.isEmpty()) {
-            Bukkit.getScheduler().runTask(Trade.getInstance(), new SlotUpdateTask(slots));
         }
 
     }
 
-    public static InventorySlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final InventorySlot slot = new InventorySlot(slotID, holder);
-        slot.setInventorySlot(slotID - LayoutManager.PLAYER_INVENTORY_SIZE);
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final int inventorySlot = slotID - LayoutManager.PLAYER_INVENTORY_SIZE;
+
+        return new SlotFactory() {
+            @Override
+            public InventorySlot create(TransactionHolder holder) {
+                final InventorySlot slot = new InventorySlot(slotID, holder);
+                slot.setInventorySlot(inventorySlot);
+                return slot;
+            }
+        };
     }
 
     public int getInventorySlot() {
@@ -1,13 +1,7 @@
 package me.josvth.trade.transaction.inventory.slot;
 
-import me.josvth.trade.Trade;
-import me.josvth.trade.tasks.SlotUpdateTask;
 import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.transaction.inventory.offer.Offer;
-import org.bukkit.Bukkit;
-
-import java.util.Iterator;
-import java.util.Set;
 
 public class MirrorSlot extends Slot {
 
@@ -19,38 +13,29 @@ public class MirrorSlot extends Slot {
 
     public static void updateMirrors(TransactionHolder holder, boolean nextTick, int... offerIndex) {
 
-        final Set<MirrorSlot> slots = holder.getSlotsOfType(MirrorSlot.class);
-
-        final Iterator<MirrorSlot> iterator = slots.iterator();
-
-        while (iterator.hasNext()) {
-            final MirrorSlot slot = iterator.next();
-
-            boolean notUpdated = true;
-            for (int i = 0; i < offerIndex.length && notUpdated; i++) {
-                if (slot.getOfferIndex() == offerIndex[i]) {
-                    if (!nextTick) {
-                        slot.update();
-                    }
-                    notUpdated = false;
+        for (int index : offerIndex) {
+            for (MirrorSlot slot : holder.getSlotIndex().getMirrorSlots(index)) {
+                if (nextTick) {
+                    holder.queueUpdate(slot);
+                } else {
+                    slot.update();
                 }
             }
-
-            if (notUpdated) {
-                iterator.remove();
-            }
-        }
-
-        if (nextTick && !slots.isEmpty()) {
-            Bukkit.getScheduler().runTask(Trade.getInstance(), new SlotUpdateTask(slots));
         }
 
     }
 
-    public static MirrorSlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final MirrorSlot slot = new MirrorSlot(slotID, holder);
-        slot.setOfferIndex(description.getConfiguration().getInt("offer-index", 0));
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final int offerIndex = description.getConfiguration().getInt("offer-index", 0);
+
+        return new SlotFactory() {
+            @Override
+            public MirrorSlot create(TransactionHolder holder) {
+                final MirrorSlot slot = new MirrorSlot(slotID, holder);
+                slot.setOfferIndex(offerIndex);
+                return slot;
+            }
+        };
     }
 
     public int getOfferIndex() {
@@ -1,17 +1,15 @@
 package me.josvth.trade.transaction.inventory.slot;
 
 import me.josvth.trade.Trade;
-import me.josvth.trade.tasks.MoneySlotUpdateTask;
 import me.josvth.trade.transaction.action.trader.offer.ChangeMoneyAction;
 import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.transaction.inventory.interact.ClickContext;
 import me.josvth.trade.transaction.inventory.offer.MoneyOffer;
 import me.josvth.trade.transaction.inventory.offer.OfferList;
 import me.josvth.trade.util.ItemStackUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.Set;
+import java.util.List;
 
 public class MoneySlot extends Slot {
 
@@ -27,31 +25,36 @@ public class MoneySlot extends Slot {
     }
 
     public static double getMoney(OfferList offers) {
-        double money = 0;
-        for (MoneyOffer tradeable : offers.getOfClass(MoneyOffer.class).values()) {
-            money += tradeable.getAmount();
-        }
-        return money;
+        return offers.getTotal(MoneyOffer.TYPE_NAME);
     }
 
     public static void updateMoneySlots(TransactionHolder holder, boolean nextTick, double money) {
-        final Set<MoneySlot> slots = holder.getSlotsOfType(MoneySlot.class);
+        final List<MoneySlot> slots = holder.getSlotsOfType(MoneySlot.class);
 
         if (!nextTick) {
             for (MoneySlot slot : slots) {
                 slot.update(money);
             }
         } else if (!slots.isEmpty()) {
-            Bukkit.getScheduler().runTask(Trade.getInstance(), new MoneySlotUpdateTask(slots, money));
+            holder.queueUpdate(slots);
         }
     }
 
-    public static MoneySlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final MoneySlot slot = new MoneySlot(slotID, holder);
-        slot.setMoneyItem(ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("money-item"), Trade.getInstance().getMessageManager()));
-        slot.setSmallModifier(description.getConfiguration().getDouble("small-modifier", 1.0));
-        slot.setLargeModifier(description.getConfiguration().getDouble("large-modifier", 5.0));
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final ItemStack moneyItem = ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("money-item"), Trade.getInstance().getMessageManager());
+        final double smallModifier = description.getConfiguration().getDouble("small-modifier", 1.0);
+        final double largeModifier = description.getConfiguration().getDouble("large-modifier", 5.0);
+
+        return new SlotFactory() {
+            @Override
+            public MoneySlot create(TransactionHolder holder) {
+                final MoneySlot slot = new MoneySlot(slotID, holder);
+                slot.setMoneyItem(moneyItem);
+                slot.setSmallModifier(smallModifier);
+                slot.setLargeModifier(largeModifier);
+                return slot;
+            }
+        };
     }
 
     public ItemStack getMoneyItem() {
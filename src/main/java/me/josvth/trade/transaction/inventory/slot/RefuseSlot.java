@@ -15,10 +15,17 @@ public class RefuseSlot extends Slot {
         super(slot, holder);
     }
 
-    public static RefuseSlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final RefuseSlot slot = new RefuseSlot(slotID, holder);
-        slot.setRefuseItem(ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("refuse-item"), Trade.getInstance().getMessageManager()));
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final ItemStack refuseItem = ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("refuse-item"), Trade.getInstance().getMessageManager());
+
+        return new SlotFactory() {
+            @Override
+            public RefuseSlot create(TransactionHolder holder) {
+                final RefuseSlot slot = new RefuseSlot(slotID, holder);
+                slot.setRefuseItem(refuseItem);
+                return slot;
+            }
+        };
     }
 
     public ItemStack getRefuseItem() {
@@ -0,0 +1,13 @@
+package me.josvth.trade.transaction.inventory.slot;
+
+import me.josvth.trade.transaction.inventory.TransactionHolder;
+
+/**
+ * Creates the slot for one slot description. Factories are compiled when the layouts are loaded so the configuration
+ * is only parsed once.
+ */
+public interface SlotFactory {
+
+    public Slot create(TransactionHolder holder);
+
+}
@@ -1,13 +1,11 @@
 package me.josvth.trade.transaction.inventory.slot;
 
 import me.josvth.trade.Trade;
-import me.josvth.trade.tasks.SlotUpdateTask;
 import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.util.ItemStackUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.Set;
+import java.util.List;
 
 public class StatusSlot extends Slot {
 
@@ -20,23 +18,31 @@ public class StatusSlot extends Slot {
 
     public static void updateStatusSlots(TransactionHolder holder, boolean nextTick) {
 
-        final Set<StatusSlot> slots = holder.getSlotsOfType(StatusSlot.class);
+        final List<StatusSlot> slots = holder.getSlotsOfType(StatusSlot.class);
 
         if (!nextTick) {
             for (Slot slot : slots) {
                 slot.update();
             }
         } else if (!slots.isEmpty()) {
-            Bukkit.getScheduler().runTask(Trade.getInstance(), new SlotUpdateTask(slots));
+            holder.queueUpdate(slots);
         }
 
     }
 
-    public static StatusSlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final StatusSlot slot = new StatusSlot(slotID, holder);
-        slot.setAcceptedItem(ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("accepted-item"), Trade.getInstance().getMessageManager()));
-        slot.setConsideringItem(ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("considering-item"), Trade.getInstance().getMessageManager()));
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final ItemStack acceptedItem = ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("accepted-item"), Trade.getInstance().getMessageManager());
+        final ItemStack consideringItem = ItemStackUtils.fromSection(description.getConfiguration().getConfigurationSection("considering-item"), Trade.getInstance().getMessageManager());
+
+        return new SlotFactory() {
+            @Override
+            public StatusSlot create(TransactionHolder holder) {
+                final StatusSlot slot = new StatusSlot(slotID, holder);
+                slot.setAcceptedItem(acceptedItem);
+                slot.setConsideringItem(consideringItem);
+                return slot;
+            }
+        };
     }
 
     public ItemStack getConsideringItem() {
@@ -1,14 +1,11 @@
 package me.josvth.trade.transaction.inventory.slot;
 
-import me.josvth.trade.Trade;
-import me.josvth.trade.tasks.SlotUpdateTask;
 import me.josvth.trade.transaction.action.trader.offer.ChangeOfferAction;
 import me.josvth.trade.transaction.action.trader.offer.SetOfferAction;
 import me.josvth.trade.transaction.inventory.TransactionHolder;
 import me.josvth.trade.transaction.inventory.interact.ClickBehaviour;
 import me.josvth.trade.transaction.inventory.interact.ClickContext;
 import me.josvth.trade.transaction.inventory.offer.Offer;
-import org.bukkit.Bukkit;
 import org.bukkit.event.inventory.ClickType;
 
 import java.util.*;
@@ -98,40 +95,29 @@ public class TradeSlot extends ContentSlot {
 
     public static void updateTradeSlots(TransactionHolder holder, boolean nextTick, int... offerIndex) {
 
-        final Set<TradeSlot> slots = holder.getSlotsOfType(TradeSlot.class);
-
-        final Iterator<TradeSlot> iterator = slots.iterator();
-
-        while (iterator.hasNext()) {
-
-            final TradeSlot slot = iterator.next();
-
-            boolean notUpdated = true;
-            for (int i = 0; i < offerIndex.length && notUpdated; i++) {
-                if (slot.getOfferIndex() == offerIndex[i]) {
-                    if (!nextTick) {
-                        slot.update();
-                    }
-                    notUpdated = false;
+        for (int index : offerIndex) {
+            for (TradeSlot slot : holder.getSlotIndex().getTradeSlots(index)) {
+                if (nextTick) {
+                    holder.queueUpdate(slot);
+                } else {
+                    slot.update();
                 }
             }
-
-            if (notUpdated) {
-                iterator.remove();
-            }
-
-        }
-
-        if (nextTick && !slots.isEmpty()) {
-            Bukkit.getScheduler().runTask(Trade.getInstance(), new SlotUpdateTask(slots));
         }
 
     }
 
-    public static TradeSlot deserialize(int slotID, TransactionHolder holder, SlotDescription description) {
-        final TradeSlot slot = new TradeSlot(slotID, holder);
-        slot.setOfferIndex(description.getConfiguration().getInt("offer-index", 0));
-        return slot;
+    public static SlotFactory compile(final int slotID, SlotDescription description) {
+        final int offerIndex = description.getConfiguration().getInt("offer-index", 0);
+
+        return new SlotFactory() {
+            @Override
+            public TradeSlot create(TransactionHolder holder) {
+                final TradeSlot slot = new TradeSlot(slotID, holder);
+                slot.setOfferIndex(offerIndex);
+                return slot;
+            }
+        };
     }
 
     public int getOfferIndex() {
@@ -0,0 +1,598 @@
+package me.josvth.trade.transaction.journal;
+
+import me.josvth.trade.Trade;
+import me.josvth.trade.transaction.Trader;
+import me.josvth.trade.transaction.Transaction;
+import me.josvth.trade.transaction.action.Action;
+import me.josvth.trade.transaction.action.EndAction;
+import me.josvth.trade.transaction.action.StartAction;
+import me.josvth.trade.transaction.action.trader.offer.OfferAction;
+import me.josvth.trade.transaction.action.trader.status.AcceptAction;
+import me.josvth.trade.transaction.inventory.offer.ItemOffer;
+import me.josvth.trade.transaction.inventory.offer.ItemSnapshot;
+import me.josvth.trade.transaction.inventory.offer.MoneyOffer;
+import me.josvth.trade.transaction.inventory.offer.Offer;
+import me.josvth.trade.transaction.inventory.offer.OfferList;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Write ahead journal of the actions of running transactions. Records are encoded on the main thread and written by a
+ * background thread that syncs the file once per batch of records.
+ * <p/>
+ * On open the journal is replayed. Offers of transactions that never ended are kept as pending returns until their
+ * owner is online, after which the file is rewritten with only those pending returns.
+ */
+public class ActionJournal {
+
+    private static final int MAGIC = 0x54524a4c;   // "TRJL"
+    private static final byte VERSION = 1;
+
+    // Record types
+    private static final byte START = 1;
+    private static final byte OFFER = 2;
+    private static final byte ACCEPT = 3;
+    private static final byte END = 4;
+    private static final byte PENDING = 5;
+    private static final byte DELIVERED = 6;
+
+    private static final byte TRADE_LIST = 0;
+    private static final byte INVENTORY_LIST = 1;
+
+    private final Trade plugin;
+    private final File file;
+
+    private final Map<UUID, List<RecoveredOffer>> pending = new HashMap<UUID, List<RecoveredOffer>>();
+
+    // Serialized items are reused for every offer of the same item
+    private final Map<ItemSnapshot, byte[]> serializedItems = new WeakHashMap<ItemSnapshot, byte[]>();
+
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<byte[]>();
+
+    private volatile boolean running = false;
+
+    // Set when the writer could not write, records are no longer queued after that
+    private volatile boolean failed = false;
+    private Thread writer = null;
+
+    public ActionJournal(Trade plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+    }
+
+    /**
+     * Replays the journal and starts the writer.
+     *
+     * @return false if the journal could not be opened
+     */
+    public boolean open() {
+
+        if (file.exists()) {
+            try {
+                replay();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to replay the trade journal.", e);
+            }
+        }
+
+        // A journal that can't be rewritten would mix the old transaction ids with new ones
+        try {
+            compact();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to rewrite the trade journal, journaling is disabled.", e);
+            return false;
+        }
+
+        if (!pending.isEmpty()) {
+            plugin.getLogger().info("Recovered the offers of " + pending.size() + " player(s) from interrupted trades.");
+        }
+
+        running = true;
+
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "Trade journal writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        return true;
+
+    }
+
+    /**
+     * Stops the writer after all queued records are written.
+     */
+    public void close() {
+
+        if (writer == null) {
+            return;
+        }
+
+        running = false;
+
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writer.isAlive()) {
+            plugin.getLogger().warning("Timed out while writing the trade journal.");
+        }
+
+        writer = null;
+
+    }
+
+    public void log(Action action) {
+        if (action instanceof OfferAction) {
+            logOffers((OfferAction) action);
+        } else if (action instanceof StartAction) {
+            logStart(action.getTransaction());
+        } else if (action instanceof AcceptAction) {
+            logAccept(((AcceptAction) action).getTrader());
+        } else if (action instanceof EndAction) {
+            logEnd(action.getTransaction());
+        }
+    }
+
+    /**
+     * Returns true if the writer stopped because the journal could not be written.
+     */
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    private void enqueue(byte[] record) {
+        if (!failed) {
+            queue.add(record);
+        }
+    }
+
+    /**
+     * Keeps the item as a pending return until its owner is online again.
+     */
+    public void mail(UUID owner, ItemStack item) {
+
+        final ItemStack single = item.clone();
+        single.setAmount(1);
+
+        final YamlConfiguration configuration = new YamlConfiguration();
+        configuration.set("item", single);
+
+        final RecoveredOffer offer = new RecoveredOffer(owner, ItemOffer.TYPE_NAME, item.getAmount(), configuration.saveToString().getBytes(RecoveredOffer.UTF_8));
+
+        addPending(offer);
+
+        final Record record = new Record(PENDING);
+        record.writeUUID(offer.getOwner());
+        record.writeUTF(offer.getType());
+        record.writeDouble(offer.getAmount());
+        record.writeBytes(offer.getItemData());
+        enqueue(record.toBytes());
+
+    }
+
+    public boolean hasPending(UUID player) {
+        return pending.containsKey(player);
+    }
+
+    /**
+     * Returns the recovered offers of the player if there are any.
+     */
+    public void deliver(Player player) {
+
+        final List<RecoveredOffer> offers = pending.remove(player.getUniqueId());
+
+        if (offers == null) {
+            return;
+        }
+
+        for (RecoveredOffer offer : offers) {
+            offer.grant(plugin, player);
+        }
+
+        final Record record = new Record(DELIVERED);
+        record.writeUUID(player.getUniqueId());
+        enqueue(record.toBytes());
+
+        plugin.getMessageManager().getMessageHolder().getMessage("trading.recovered").send(player);
+
+    }
+
+    private void logStart(Transaction transaction) {
+        final Record record = new Record(START);
+        record.writeLong(transaction.getId());
+        record.writeUUID(transaction.getTraderA().getID());
+        record.writeUUID(transaction.getTraderB().getID());
+        enqueue(record.toBytes());
+    }
+
+    private void logOffers(OfferAction action) {
+
+        final OfferList list = action.getList();
+        final byte listType = (list.getType() == OfferList.Type.TRADE) ? TRADE_LIST : INVENTORY_LIST;
+
+        for (Map.Entry<Integer, Offer> entry : action.getChanges().entrySet()) {
+
+            final Record record = new Record(OFFER);
+            record.writeLong(action.getTransaction().getId());
+            record.writeUUID(list.getTrader().getID());
+            record.writeByte(listType);
+            record.writeInt(entry.getKey());
+
+            // Offers that stay in the inventory are in the real inventory of the player and are not escrowed,
+            // offered money never leaves the account of the player
+            final Offer offer = entry.getValue();
+            if (offer == null || offer instanceof MoneyOffer || (listType == INVENTORY_LIST && offer.canStayInInventory())) {
+                record.writeBoolean(false);
+            } else {
+                record.writeBoolean(true);
+                writeOffer(record, offer);
+            }
+
+            enqueue(record.toBytes());
+
+        }
+
+    }
+
+    private void logAccept(Trader trader) {
+        final Record record = new Record(ACCEPT);
+        record.writeLong(trader.getTransaction().getId());
+        record.writeUUID(trader.getID());
+        enqueue(record.toBytes());
+    }
+
+    private void logEnd(Transaction transaction) {
+        final Record record = new Record(END);
+        record.writeLong(transaction.getId());
+        enqueue(record.toBytes());
+    }
+
+    private void writeOffer(Record record, Offer offer) {
+        record.writeUTF(offer.getType());
+        record.writeDouble(offer.getAmount());
+        if (offer instanceof ItemOffer && ((ItemOffer) offer).getItem() != null) {
+            record.writeBytes(serialize(((ItemOffer) offer).getItem()));
+        } else {
+            record.writeBytes(null);
+        }
+    }
+
+    private byte[] serialize(ItemSnapshot item) {
+        byte[] bytes = serializedItems.get(item);
+        if (bytes == null) {
+            final YamlConfiguration configuration = new YamlConfiguration();
+            configuration.set("item", item.createItemStack(1));
+            bytes = configuration.saveToString().getBytes(RecoveredOffer.UTF_8);
+            serializedItems.put(item, bytes);
+        }
+        return bytes;
+    }
+
+    // Writer thread
+    private void write() {
+
+        FileOutputStream stream = null;
+
+        try {
+
+            stream = new FileOutputStream(file, true);
+
+            final OutputStream out = new BufferedOutputStream(stream);
+            final List<byte[]> batch = new ArrayList<byte[]>();
+
+            while (running || !queue.isEmpty()) {
+
+                final byte[] first;
+
+                try {
+                    first = queue.poll(50, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+
+                if (first == null) {
+                    continue;
+                }
+
+                // Everything queued in the mean time is committed with the same sync
+                batch.add(first);
+                queue.drainTo(batch);
+
+                for (byte[] record : batch) {
+                    out.write(record);
+                }
+
+                out.flush();
+                stream.getChannel().force(false);
+
+                batch.clear();
+
+            }
+
+            out.close();
+
+        } catch (IOException e) {
+            failed = true;
+            queue.clear();
+            plugin.getLogger().log(Level.SEVERE, "Failed to write to the trade journal, journaling is disabled until the next reload.", e);
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+    }
+
+    // Recovery
+    private void replay() throws IOException {
+
+        // Escrowed offers of every running transaction by trader, list and slot
+        final Map<Long, Map<String, RecoveredOffer>> running = new HashMap<Long, Map<String, RecoveredOffer>>();
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+        try {
+
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Unknown journal format.");
+            }
+
+            byte[] bytes;
+            while ((bytes = Record.read(in)) != null) {
+
+                final DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+
+                switch (record.readByte()) {
+                    case START:
+                        running.put(record.readLong(), new HashMap<String, RecoveredOffer>());
+                        break;
+                    case OFFER: {
+                        final Map<String, RecoveredOffer> offers = running.get(record.readLong());
+                        final UUID trader = Record.readUUID(record);
+                        final String slot = trader + "/" + record.readByte() + "/" + record.readInt();
+                        if (offers != null) {
+                            if (record.readBoolean()) {
+                                offers.put(slot, new RecoveredOffer(trader, record.readUTF(), record.readDouble(), Record.readBytes(record)));
+                            } else {
+                                offers.remove(slot);
+                            }
+                        }
+                        break;
+                    }
+                    case END:
+                        running.remove(record.readLong());
+                        break;
+                    case PENDING: {
+                        final UUID owner = Record.readUUID(record);
+                        addPending(new RecoveredOffer(owner, record.readUTF(), record.readDouble(), Record.readBytes(record)));
+                        break;
+                    }
+                    case DELIVERED:
+                        pending.remove(Record.readUUID(record));
+                        break;
+                    default:
+                        break;
+                }
+
+            }
+
+        } finally {
+            in.close();
+        }
+
+        for (Map<String, RecoveredOffer> offers : running.values()) {
+            for (RecoveredOffer offer : offers.values()) {
+                addPending(offer);
+            }
+        }
+
+    }
+
+    private void addPending(RecoveredOffer offer) {
+        List<RecoveredOffer> offers = pending.get(offer.getOwner());
+        if (offers == null) {
+            offers = new ArrayList<RecoveredOffer>();
+            pending.put(offer.getOwner(), offers);
+        }
+        offers.add(offer);
+    }
+
+    private void compact() throws IOException {
+
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        final File temp = new File(file.getPath() + ".tmp");
+
+        final FileOutputStream stream = new FileOutputStream(temp);
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+
+        try {
+
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+
+            for (List<RecoveredOffer> offers : pending.values()) {
+                for (RecoveredOffer offer : offers) {
+                    final Record record = new Record(PENDING);
+                    record.writeUUID(offer.getOwner());
+                    record.writeUTF(offer.getType());
+                    record.writeDouble(offer.getAmount());
+                    record.writeBytes(offer.getItemData());
+                    out.write(record.toBytes());
+                }
+            }
+
+            out.flush();
+            stream.getChannel().force(false);
+
+        } finally {
+            out.close();
+        }
+
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not replace " + file.getName());
+        }
+
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not rename " + temp.getName());
+        }
+
+    }
+
+    /**
+     * A single journal record, framed by its length and checksum so a torn write at the end of the file is detected.
+     */
+    private static class Record {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private Record(byte type) {
+            writeByte(type);
+        }
+
+        private static byte[] read(DataInputStream in) throws IOException {
+
+            final byte[] record;
+            final long checksum;
+
+            try {
+                final int length = in.readInt();
+                checksum = in.readInt() & 0xffffffffL;
+                if (length < 1 || length > 1 << 20) {
+                    return null;
+                }
+                record = new byte[length];
+                in.readFully(record);
+            } catch (EOFException e) {
+                return null;
+            }
+
+            final CRC32 crc = new CRC32();
+            crc.update(record);
+
+            return (crc.getValue() == checksum) ? record : null;
+
+        }
+
+        private static UUID readUUID(DataInputStream in) throws IOException {
+            return new UUID(in.readLong(), in.readLong());
+        }
+
+        private static byte[] readBytes(DataInputStream in) throws IOException {
+            final int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        private void writeByte(int value) {
+            try {
+                out.writeByte(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void writeBoolean(boolean value) {
+            writeByte(value ? 1 : 0);
+        }
+
+        private void writeInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void writeLong(long value) {
+            try {
+                out.writeLong(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void writeDouble(double value) {
+            try {
+                out.writeDouble(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void writeUTF(String value) {
+            try {
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void writeUUID(UUID value) {
+            writeLong(value.getMostSignificantBits());
+            writeLong(value.getLeastSignificantBits());
+        }
+
+        private void writeBytes(byte[] value) {
+            if (value == null) {
+                writeInt(-1);
+            } else {
+                writeInt(value.length);
+                try {
+                    out.write(value);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        private byte[] toBytes() {
+
+            final byte[] record = bytes.toByteArray();
+
+            final CRC32 crc = new CRC32();
+            crc.update(record);
+
+            final ByteArrayOutputStream framed = new ByteArrayOutputStream(record.length + 8);
+            final DataOutputStream out = new DataOutputStream(framed);
+
+            try {
+                out.writeInt(record.length);
+                out.writeInt((int) crc.getValue());
+                out.write(record);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return framed.toByteArray();
+
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package me.josvth.trade.transaction.journal;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+/**
+ * Returns recovered offers when their owner joins.
+ */
+public class JournalListener implements Listener {
+
+    private final ActionJournal journal;
+
+    public JournalListener(ActionJournal journal) {
+        this.journal = journal;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        journal.deliver(event.getPlayer());
+    }
+
+}
@@ -0,0 +1,101 @@
+package me.josvth.trade.transaction.journal;
+
+import me.josvth.trade.Trade;
+import me.josvth.trade.transaction.inventory.offer.ExperienceOffer;
+import me.josvth.trade.transaction.inventory.offer.ItemOffer;
+import me.josvth.trade.transaction.inventory.offer.MoneyOffer;
+import me.josvth.trade.util.ExperienceManager;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.nio.charset.Charset;
+import java.util.UUID;
+
+/**
+ * An offer read back from the journal, held until it is returned to its owner.
+ */
+public class RecoveredOffer {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final UUID owner;
+    private final String type;
+    private final double amount;
+    private final byte[] item;
+
+    public RecoveredOffer(UUID owner, String type, double amount, byte[] item) {
+        this.owner = owner;
+        this.type = type;
+        this.amount = amount;
+        this.item = item;
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    byte[] getItemData() {
+        return item;
+    }
+
+    public ItemStack getItem() {
+
+        if (item == null) {
+            return null;
+        }
+
+        final YamlConfiguration configuration = new YamlConfiguration();
+
+        try {
+            configuration.loadFromString(new String(item, UTF_8));
+        } catch (InvalidConfigurationException e) {
+            throw new IllegalStateException("Journal contains an invalid item.", e);
+        }
+
+        final ItemStack stack = configuration.getItemStack("item");
+
+        if (stack != null) {
+            stack.setAmount((int) amount);
+        }
+
+        return stack;
+
+    }
+
+    /**
+     * Gives this offer to the online owner.
+     */
+    public void grant(Trade plugin, Player player) {
+
+        if (ItemOffer.TYPE_NAME.equals(type)) {
+            final ItemStack stack = getItem();
+            if (stack != null) {
+                for (ItemStack leftover : player.getInventory().addItem(stack).values()) {
+                    player.getWorld().dropItem(player.getLocation(), leftover);
+                }
+            }
+        } else if (ExperienceOffer.TYPE_NAME.equals(type)) {
+            ExperienceManager.changeExp(player, amount);
+        } else if (MoneyOffer.TYPE_NAME.equals(type)) {
+            if (plugin.getEconomy() != null) {
+                plugin.getEconomy().depositPlayer(player.getName(), amount);
+            } else {
+                plugin.getLogger().warning("Could not return " + amount + " money to " + player.getName() + ", no economy found.");
+            }
+        } else {
+            plugin.getLogger().warning("Could not return unknown offer type " + type + " to " + player.getName());
+        }
+
+    }
+
+}
@@ -2,9 +2,6 @@ package me.josvth.trade.util;
 
 import org.bukkit.entity.Player;
 
-import java.lang.ref.WeakReference;
-import java.util.Arrays;
-
 /**
  * @author desht
  *         <p/>
@@ -20,158 +17,47 @@ import java.util.Arrays;
  *         http://forums.bukkit.org/threads/experiencemanager
  *         -was-experienceutils-make-giving-taking-
  *         exp-a-bit-more-intuitive.54450/page-3#post-1273622
+ *         <p/>
+ *         The lookup tables are replaced by the closed forms of the XP curve of MC 1.3 and later, so no state is
+ *         kept and nothing is allocated.
  */
-public class ExperienceManager {
-
-    // this is to stop the lookup tables growing without control
-    private static int hardMaxLevel = 100000;
-
-    private static int xpRequiredForNextLevel[];
-    private static int xpTotalToReachLevel[];
-
-    private final WeakReference<Player> player;
-    private final String playerName;
-
-    static {
-        // 25 is an arbitrary value for the initial table size - the actual
-        // value isn't critically
-        // important since the tables are resized as needed.
-        initLookupTables(25);
-    }
-
-    /**
-     * Create a new ExperienceManager for the given player.
-     *
-     * @param player The player for this ExperienceManager object
-     */
-    public ExperienceManager(final Player player) {
-        if (player == null) {
-            throw new IllegalArgumentException("Player cannot be null.");
-        }
-
-        this.player = new WeakReference<Player>(player);
-        playerName = player.getName();
-    }
-
-    public static int getHardMaxLevel() {
-        return hardMaxLevel;
-    }
-
-    public static void setHardMaxLevel(final int hardMaxLevel) {
-        ExperienceManager.hardMaxLevel = hardMaxLevel;
-    }
-
-    /**
-     * Initialize the XP lookup tables. Basing this on observations noted in
-     * https://bukkit.atlassian.net/browse/BUKKIT-47
-     * <p/>
-     * 7 XP to get to level 1, 17 to level 2, 31 to level 3... At each level, the increment to get
-     * to the next level increases alternately by 3 and 4
-     *
-     * @param maxLevel The highest level handled by the lookup tables
-     */
-    private static void initLookupTables(final int maxLevel) {
-        xpRequiredForNextLevel = new int[maxLevel];
-        xpTotalToReachLevel = new int[maxLevel];
-
-        xpTotalToReachLevel[0] = 0;
-
-        // Valid for MC 1.3 and later
-        int incr = 17;
-        for (int i = 1; i < xpTotalToReachLevel.length; i++) {
-            xpRequiredForNextLevel[i - 1] = incr;
-            xpTotalToReachLevel[i] = xpTotalToReachLevel[i - 1] + incr;
-            if (i >= 30) {
-                incr += 7;
-            } else if (i >= 16) {
-                incr += 3;
-            }
-        }
-        xpRequiredForNextLevel[xpRequiredForNextLevel.length - 1] = incr;
-    }
-
-    /**
-     * Calculate the level that the given XP quantity corresponds to, without using the lookup
-     * tables. This is needed if getLevelForExp() is called with an XP quantity beyond the range of
-     * the existing lookup tables.
-     *
-     * @param exp
-     * @return
-     */
-    private static int calculateLevelForExp(final int exp) {
-        int level = 0;
-        int curExp = 7; // level 1
-        int incr = 10;
+public final class ExperienceManager {
 
-        while (curExp <= exp) {
-            curExp += incr;
-            level++;
-            incr += level % 2 == 0 ? 3 : 4;
-        }
-        return level;
-    }
-
-    /**
-     * Get the Player associated with this ExperienceManager.
-     *
-     * @return the Player object
-     * @throws IllegalStateException if the player is no longer online
-     */
-    public Player getPlayer() {
-        final Player p = player.get();
+    // Total XP needed to reach the levels where the curve changes
+    private static final int XP_LEVEL_16 = 272;
+    private static final int XP_LEVEL_30 = 825;
 
-        if (p == null) {
-            throw new IllegalStateException("Player " + playerName + " is not online");
-        }
-        return p;
+    private ExperienceManager() {
     }
 
     /**
      * Adjust the player's XP by the given amount in an intelligent fashion. Works around some of
      * the non-intuitive behavior of the basic Bukkit player.giveExp() method.
      *
-     * @param amt Amount of XP, may be negative
+     * @param player The player
+     * @param amt    Amount of XP, may be negative
      */
-    public void changeExp(final int amt) {
-        changeExp((double) amt);
-    }
-
-    /**
-     * Adjust the player's XP by the given amount in an intelligent fashion. Works around some of
-     * the non-intuitive behavior of the basic Bukkit player.giveExp() method.
-     *
-     * @param amt Amount of XP, may be negative
-     */
-    public void changeExp(final double amt) {
-        setExp(getCurrentFractionalXP(), amt);
-    }
-
-    /**
-     * Set the player's experience
-     *
-     * @param amt Amount of XP, should not be negative
-     */
-    public void setExp(final int amt) {
-        setExp(0, amt);
+    public static void changeExp(final Player player, final double amt) {
+        setExp(player, getCurrentFractionalExp(player), amt);
     }
 
     /**
      * Set the player's fractional experience.
      *
-     * @param amt Amount of XP, should not be negative
+     * @param player The player
+     * @param amt    Amount of XP, should not be negative
      */
-    public void setExp(final double amt) {
-        setExp(0, amt);
+    public static void setExp(final Player player, final double amt) {
+        setExp(player, 0, amt);
     }
 
-    private void setExp(final double base, final double amt) {
+    private static void setExp(final Player player, final double base, final double amt) {
         int xp = (int) (base + amt);
 
         if (xp < 0) {
             xp = 0;
         }
 
-        final Player player = getPlayer();
         final int curLvl = player.getLevel();
         final int newLvl = getLevelForExp(xp);
 
@@ -184,56 +70,41 @@ public class ExperienceManager {
             player.setTotalExperience(player.getTotalExperience() + xp - (int) base);
         }
 
-        final double pct = (base - getXpForLevel(newLvl) + amt) / xpRequiredForNextLevel[newLvl];
+        final double pct = (base - getXpForLevel(newLvl) + amt) / getXpNeededToLevelUp(newLvl);
         player.setExp((float) pct);
     }
 
     /**
      * Get the player's current XP total.
      *
+     * @param player The player
      * @return the player's total XP
      */
-    public int getCurrentExp() {
-        final Player player = getPlayer();
-
+    public static int getCurrentExp(final Player player) {
         final int lvl = player.getLevel();
-        final int cur =
-                getXpForLevel(lvl) + Math.round(xpRequiredForNextLevel[lvl] * player.getExp());
-        return cur;
+        return getXpForLevel(lvl) + Math.round(getXpNeededToLevelUp(lvl) * player.getExp());
     }
 
     /**
      * Get the player's current fractional XP.
      *
+     * @param player The player
      * @return The player's total XP with fractions.
      */
-    private double getCurrentFractionalXP() {
-        final Player player = getPlayer();
-
+    public static double getCurrentFractionalExp(final Player player) {
         final int lvl = player.getLevel();
-        final double cur =
-                getXpForLevel(lvl) + (double) (xpRequiredForNextLevel[lvl] * player.getExp());
-        return cur;
-    }
-
-    /**
-     * Checks if the player has the given amount of XP.
-     *
-     * @param amt The amount to check for.
-     * @return true if the player has enough XP, false otherwise
-     */
-    public boolean hasExp(final int amt) {
-        return getCurrentExp() >= amt;
+        return getXpForLevel(lvl) + (double) (getXpNeededToLevelUp(lvl) * player.getExp());
     }
 
     /**
      * Checks if the player has the given amount of fractional XP.
      *
-     * @param amt The amount to check for.
+     * @param player The player
+     * @param amt    The amount to check for.
      * @return true if the player has enough XP, false otherwise
      */
-    public boolean hasExp(final double amt) {
-        return getCurrentFractionalXP() >= amt;
+    public static boolean hasExp(final Player player, final double amt) {
+        return getCurrentFractionalExp(player) >= amt;
     }
 
     /**
@@ -242,21 +113,30 @@ public class ExperienceManager {
      * @param exp The amount to check for.
      * @return The level that a player with this amount total XP would be.
      */
-    public int getLevelForExp(final int exp) {
+    public static int getLevelForExp(final int exp) {
         if (exp <= 0) {
             return 0;
         }
-        if (exp > xpTotalToReachLevel[xpTotalToReachLevel.length - 1]) {
-            // need to extend the lookup tables
-            final int newMax = calculateLevelForExp(exp) * 2;
-            if (newMax > hardMaxLevel) {
-                throw new IllegalArgumentException("Level for exp " + exp + " > hard max level "
-                        + hardMaxLevel);
-            }
-            initLookupTables(newMax);
+
+        if (exp < XP_LEVEL_16) {
+            return exp / 17;
         }
-        final int pos = Arrays.binarySearch(xpTotalToReachLevel, exp);
-        return pos < 0 ? -pos - 2 : pos;
+
+        // Inverse of the quadratic parts of getXpForLevel, the estimate can be one off due to rounding
+        int level;
+        if (exp < XP_LEVEL_30) {
+            level = (int) ((59 + Math.sqrt(24.0 * exp - 5159)) / 6);
+        } else {
+            level = (int) ((295 + Math.sqrt(56.0 * exp - 30575)) / 14);
+        }
+
+        if (getTotalXp(level) > exp) {
+            level--;
+        } else if (getTotalXp(level + 1) <= exp) {
+            level++;
+        }
+
+        return level;
     }
 
     /**
@@ -265,14 +145,18 @@ public class ExperienceManager {
      * @param level - level to check.
      * @return The amount of experience at this level in the level bar.
      */
-    public int getXpNeededToLevelUp(final int level) {
+    public static int getXpNeededToLevelUp(final int level) {
         if (level < 0) {
             throw new IllegalArgumentException("Level cannot be negative.");
         }
 
-        // Initialize lookup tables
-        getXpForLevel(level);
-        return xpRequiredForNextLevel[level];
+        if (level < 16) {
+            return 17;
+        }
+        if (level < 30) {
+            return 3 * level - 28;
+        }
+        return 7 * level - 144;
     }
 
     /**
@@ -281,16 +165,28 @@ public class ExperienceManager {
      * @param level The level to check for.
      * @return The amount of XP needed for the level.
      */
-    public int getXpForLevel(final int level) {
-        if (level > hardMaxLevel) {
-            throw new IllegalArgumentException("Level " + level + " > hard max level "
-                    + hardMaxLevel);
+    public static int getXpForLevel(final int level) {
+        if (level < 0) {
+            throw new IllegalArgumentException("Level cannot be negative.");
         }
 
-        if (level >= xpTotalToReachLevel.length) {
-            initLookupTables(level * 2);
+        final long xp = getTotalXp(level);
+
+        if (xp > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("XP for level " + level + " exceeds " + Integer.MAX_VALUE);
         }
-        return xpTotalToReachLevel[level];
+
+        return (int) xp;
     }
-}
 
+    private static long getTotalXp(final long level) {
+        if (level <= 16) {
+            return 17 * level;
+        }
+        if (level <= 30) {
+            return (3 * level * level - 59 * level + 720) / 2;
+        }
+        return (7 * level * level - 295 * level + 4200) / 2;
+    }
+
+}
@@ -0,0 +1,69 @@
+package me.josvth.trade.util;
+
+/**
+ * Token bucket rate limiter. The bucket starts full and refills continuously, every permitted action takes one token.
+ * Refilling is computed on use so an idle bucket costs nothing.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param capacity  the maximum amount of actions in a burst
+     * @param perSecond the amount of tokens added each second
+     */
+    public TokenBucket(double capacity, double perSecond) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1.");
+        }
+        if (perSecond <= 0) {
+            throw new IllegalArgumentException("Refill rate must be positive.");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = perSecond / 1000000000D;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @return true if the action is permitted
+     */
+    public boolean tryConsume() {
+
+        refill();
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Checks if there is a token without taking it.
+     */
+    public boolean hasToken() {
+        refill();
+        return tokens >= 1;
+    }
+
+    public boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        final long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+
+}